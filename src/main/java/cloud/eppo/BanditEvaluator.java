@@ -3,9 +3,10 @@ package cloud.eppo;
 import static cloud.eppo.Utils.getShard;
 
 import cloud.eppo.api.Actions;
-import cloud.eppo.api.Attributes;
+import cloud.eppo.api.AttributeView;
 import cloud.eppo.api.DiscriminableAttributes;
 import cloud.eppo.api.EppoValue;
+import cloud.eppo.api.MapAttributeView;
 import cloud.eppo.ufc.dto.*;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -44,6 +45,11 @@ public class BanditEvaluator {
 
   private static Map<String, Double> scoreActions(
       DiscriminableAttributes subjectAttributes, Actions actions, BanditModelData modelData) {
+    // The subject's attributes are the same for every action, so only split them once
+    AttributeView subjectNumericAttributes =
+        new MapAttributeView(subjectAttributes.getNumericAttributes());
+    AttributeView subjectCategoricalAttributes =
+        new MapAttributeView(subjectAttributes.getCategoricalAttributes());
     return actions.entrySet().stream()
         .collect(
             Collectors.toMap(
@@ -65,19 +71,19 @@ public class BanditEvaluator {
                   double actionScore = banditCoefficients.getIntercept();
                   actionScore +=
                       scoreContextForCoefficients(
-                          actionAttributes.getNumericAttributes(),
+                          new MapAttributeView(actionAttributes.getNumericAttributes()),
                           banditCoefficients.getActionNumericCoefficients());
                   actionScore +=
                       scoreContextForCoefficients(
-                          actionAttributes.getCategoricalAttributes(),
+                          new MapAttributeView(actionAttributes.getCategoricalAttributes()),
                           banditCoefficients.getActionCategoricalCoefficients());
                   actionScore +=
                       scoreContextForCoefficients(
-                          subjectAttributes.getNumericAttributes(),
+                          subjectNumericAttributes,
                           banditCoefficients.getSubjectNumericCoefficients());
                   actionScore +=
                       scoreContextForCoefficients(
-                          subjectAttributes.getCategoricalAttributes(),
+                          subjectCategoricalAttributes,
                           banditCoefficients.getSubjectCategoricalCoefficients());
 
                   return actionScore;
@@ -85,7 +91,7 @@ public class BanditEvaluator {
   }
 
   private static double scoreContextForCoefficients(
-      Attributes attributes, Map<String, ? extends BanditAttributeCoefficients> coefficients) {
+      AttributeView attributes, Map<String, ? extends BanditAttributeCoefficients> coefficients) {
 
     double totalScore = 0.0;
 
@@ -157,7 +163,7 @@ public class BanditEvaluator {
             .collect(Collectors.toList());
 
     // Select action from the shuffled actions, based on weight
-    double assignedShard = getShard(flagKey + "-" + subjectKey, BANDIT_ASSIGNMENT_SHARDS);
+    double assignedShard = getShard(flagKey, subjectKey, BANDIT_ASSIGNMENT_SHARDS);
     double assignmentWeightThreshold = assignedShard / (double) BANDIT_ASSIGNMENT_SHARDS;
     double cumulativeWeight = 0;
     String assignedAction = null;
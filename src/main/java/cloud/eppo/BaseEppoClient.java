@@ -10,13 +10,27 @@ import cloud.eppo.logging.Assignment;
 import cloud.eppo.logging.AssignmentLogger;
 import cloud.eppo.logging.BanditAssignment;
 import cloud.eppo.logging.BanditLogger;
+import cloud.eppo.model.CompiledAllocation;
+import cloud.eppo.model.CompiledFlag;
 import cloud.eppo.ufc.dto.*;
 import com.fasterxml.jackson.databind.JsonNode;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Timer;
+import java.util.concurrent.Callable;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
+import java.util.function.Function;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
@@ -24,6 +38,10 @@ import org.slf4j.LoggerFactory;
 
 public class BaseEppoClient {
   private static final Logger log = LoggerFactory.getLogger(BaseEppoClient.class);
+  // Subjects evaluated by each task of a bulk evaluation
+  private static final int BULK_CHUNK_SIZE = 256;
+  // Tasks queued per pool thread, keeping threads busy while results are delivered
+  private static final int BULK_CHUNKS_IN_FLIGHT_PER_THREAD = 4;
 
   protected final ConfigurationRequestor requestor;
   private final IConfigurationStore configurationStore;
@@ -32,9 +50,12 @@ public class BaseEppoClient {
   private final String sdkName;
   private final String sdkVersion;
   private boolean isGracefulMode;
+  private volatile Clock clock = Clock.SYSTEM;
+  @Nullable private volatile EvaluationResultCache resultCache;
   private final IAssignmentCache assignmentCache;
   private final IAssignmentCache banditAssignmentCache;
   private Timer pollTimer;
+  private volatile DefaultEvaluationDetails defaultEvaluationDetails;
 
   @Nullable protected CompletableFuture<Boolean> getInitialConfigFuture() {
     return initialConfigFuture;
@@ -181,6 +202,538 @@ public class BaseEppoClient {
     return future;
   }
 
+  /**
+   * Top-level assignment method for the plain typed getters. Evaluates in lean mode, without
+   * building evaluation details, and logs if applicable. Serves and logs the same assignments as
+   * {@link #getTypedAssignmentWithDetails}.
+   */
+  private <T> T getTypedAssignment(
+      String flagKey,
+      String subjectKey,
+      Attributes subjectAttributes,
+      T defaultValue,
+      VariationType expectedType) {
+
+    throwIfEmptyOrNull(flagKey, "flagKey must not be empty");
+    throwIfEmptyOrNull(subjectKey, "subjectKey must not be empty");
+
+    EvaluationResultCache resultCache = this.resultCache;
+    // Read before the configuration; see ConfigurationStore#saveConfiguration
+    long configEpoch = resultCache != null ? configurationEpoch() : 0;
+    Configuration config = getConfiguration();
+
+    CompiledFlag flag = config.getCompiledFlag(flagKey);
+    if (flag == null) {
+      log.warn("no configuration found for key: {}", flagKey);
+      return defaultValue;
+    }
+
+    if (!flag.isEnabled()) {
+      log.info(
+          "no assigned variation because the experiment or feature flag is disabled: {}", flagKey);
+      return defaultValue;
+    }
+
+    if (flag.getVariationType() != expectedType) {
+      log.warn(
+          "no assigned variation because the flag type doesn't match the requested type: {} has type {}, requested {}",
+          flagKey,
+          flag.getVariationType(),
+          expectedType);
+      return defaultValue;
+    }
+
+    FlagAssignment assignment =
+        resultCache != null
+            ? assignFlagCached(
+                resultCache, configEpoch, config, flag, flagKey, subjectKey, subjectAttributes)
+            : FlagEvaluator.assignFlag(
+                flag,
+                subjectKey,
+                subjectAttributes,
+                config.isConfigObfuscated(),
+                clock.currentTimeMillis());
+    if (assignment == null) {
+      return defaultValue;
+    }
+
+    EppoValue assignedValue = assignment.getVariation().getValue();
+    if (assignedValue == null) {
+      return defaultValue;
+    }
+
+    if (!valueTypeMatchesExpected(expectedType, assignedValue)) {
+      log.warn(
+          "no assigned variation because the flag type doesn't match the variation type: {} has type {}, variation value is {}",
+          flagKey,
+          flag.getVariationType(),
+          assignedValue);
+      return defaultValue;
+    }
+
+    if (assignment.doLog()) {
+      logAssignment(
+          config,
+          flagKey,
+          subjectKey,
+          subjectAttributes,
+          assignment.getAllocationKey(),
+          assignment.getVariation(),
+          assignment.getExtraLogging());
+    }
+
+    return assignedValue.unwrap(expectedType);
+  }
+
+  /**
+   * Returns a context for evaluating flags and bandits for the subject against the current
+   * configuration. See {@link EvaluationContext}.
+   */
+  public EvaluationContext forSubject(
+      String subjectKey, DiscriminableAttributes subjectAttributes) {
+    throwIfEmptyOrNull(subjectKey, "subjectKey must not be empty");
+    return new EvaluationContext(
+        this, getConfiguration(), subjectKey, subjectAttributes, clock.currentTimeMillis());
+  }
+
+  public EvaluationContext forSubject(String subjectKey) {
+    return forSubject(subjectKey, new Attributes());
+  }
+
+  /**
+   * Evaluates every flag of the current configuration for the subject. See {@link
+   * #getAllAssignments(String, Attributes, Collection)}.
+   */
+  public SubjectAssignments getAllAssignments(String subjectKey, Attributes subjectAttributes) {
+    return getAllAssignments(subjectKey, subjectAttributes, null);
+  }
+
+  /**
+   * Evaluates the given flags, or all flags if null, for the subject in one pass.
+   *
+   * <p>All flags are evaluated against the same configuration, even if a new one is loaded
+   * meanwhile, and share the subject's preparation: its attributes are indexed, its shards hashed
+   * and its targeting conditions evaluated once for all of them. Assignments that should be logged
+   * are handed to {@link AssignmentLogger#logAssignments} together at the end.
+   *
+   * <p>Flags that assign nothing, are unknown or fail to evaluate (in graceful mode) are left out
+   * of the result. The flags of an obfuscated configuration can't be listed, so for those the keys
+   * must be given.
+   */
+  public SubjectAssignments getAllAssignments(
+      String subjectKey, Attributes subjectAttributes, @Nullable Collection<String> flagKeys) {
+    throwIfEmptyOrNull(subjectKey, "subjectKey must not be empty");
+
+    Configuration config = getConfiguration();
+    List<Assignment> assignmentsToLog = new ArrayList<>();
+    SubjectAssignments assignments =
+        assignAll(
+            config,
+            resolveFlagKeys(config, flagKeys),
+            new PreparedSubject(subjectKey, subjectAttributes, config.isConfigObfuscated()),
+            clock.currentTimeMillis(),
+            assignmentsToLog);
+    logAssignments(assignmentsToLog);
+    return assignments;
+  }
+
+  /**
+   * Evaluates the given flags, or all flags if null, for each of many subjects in parallel, such as
+   * for backfills or audience sizing.
+   *
+   * <p>Subjects are read from the iterator on the calling thread in chunks, which are evaluated as
+   * in {@link #getAllAssignments(String, Attributes, Collection)} on the given pool. Only a bounded
+   * number of chunks is in flight at a time, so memory use doesn't grow with the number of
+   * subjects. Results are passed to the consumer on the calling thread, in the order of the
+   * subjects, so it needs not be thread-safe. All subjects are evaluated against the same
+   * configuration and time.
+   *
+   * <p>Subject keys are checked as subjects are read, before their chunk is evaluated: a subject
+   * with an empty key is skipped in graceful mode, and otherwise fails the run. If the run fails,
+   * chunks still in flight are cancelled.
+   *
+   * @param logAssignments whether to log the assignments, in one batch per chunk
+   */
+  public void getAllAssignmentsInBulk(
+      Iterator<Subject> subjects,
+      @Nullable Collection<String> flagKeys,
+      ForkJoinPool pool,
+      final Consumer<SubjectAssignments> consumer,
+      boolean logAssignments) {
+    final Configuration config = getConfiguration();
+    final Collection<String> resolvedFlagKeys = resolveFlagKeys(config, flagKeys);
+    final long now = clock.currentTimeMillis();
+    evaluateInBulk(
+        subjects,
+        Subject::getKey,
+        pool,
+        (subject, chunk) ->
+            assignAll(
+                config,
+                resolvedFlagKeys,
+                new PreparedSubject(
+                    subject.getKey(), subject.getAttributes(), config.isConfigObfuscated()),
+                now,
+                chunk.assignmentsToLog),
+        (subject, assignments) -> consumer.accept(assignments),
+        logAssignments);
+  }
+
+  /**
+   * Chooses an action of the flag's bandit for each of many subjects in parallel, as {@link
+   * #getBanditAction} would for each, such as for backfills or offline policy evaluation.
+   *
+   * <p>Subjects, with the actions to choose from, are read and evaluated in chunks as in {@link
+   * #getAllAssignmentsInBulk}. Results are passed to the consumer with their subject on the calling
+   * thread, in the order of the subjects. All subjects are evaluated against the same configuration
+   * and time.
+   *
+   * @param logAssignments whether to log the flag and bandit assignments, in batches per chunk
+   */
+  public void getBanditActionsInBulk(
+      final String flagKey,
+      Iterator<BanditSubject> subjects,
+      final String defaultValue,
+      ForkJoinPool pool,
+      BiConsumer<BanditSubject, BanditResult> consumer,
+      boolean logAssignments) {
+    throwIfEmptyOrNull(flagKey, "flagKey must not be empty");
+    final Configuration config = getConfiguration();
+    final long now = clock.currentTimeMillis();
+    CompiledFlag flag = config.getCompiledFlag(flagKey);
+    if (flag == null) {
+      log.warn("no configuration found for key: {}", flagKey);
+    } else if (flag.getVariationType() != VariationType.STRING) {
+      log.warn(
+          "no assigned variation because the flag type doesn't match the requested type: {} has type {}, requested {}",
+          flagKey,
+          flag.getVariationType(),
+          VariationType.STRING);
+      flag = null;
+    }
+    final @Nullable CompiledFlag banditFlag = flag;
+    evaluateInBulk(
+        subjects,
+        BanditSubject::getKey,
+        pool,
+        (subject, chunk) ->
+            assignBanditInBulk(config, banditFlag, flagKey, subject, defaultValue, now, chunk),
+        consumer,
+        logAssignments);
+  }
+
+  /**
+   * Chooses the subject's bandit action as {@link EvaluationContext#getBanditAction} does, adding
+   * the flag and bandit assignments to log to the chunk's lists.
+   *
+   * @param flag the flag, or null if it is unknown or not a string flag
+   */
+  private BanditResult assignBanditInBulk(
+      Configuration config,
+      @Nullable CompiledFlag flag,
+      String flagKey,
+      BanditSubject subject,
+      String defaultValue,
+      long now,
+      BulkChunk<?, ?> chunk) {
+    String variation = defaultValue;
+    if (flag != null) {
+      try {
+        EppoValue value =
+            assignPrepared(
+                config,
+                flag,
+                flagKey,
+                new PreparedSubject(
+                    subject.getKey(),
+                    subject.getAttributes().getAllAttributes(),
+                    config.isConfigObfuscated()),
+                now,
+                chunk.assignmentsToLog);
+        if (value != null) {
+          variation = value.unwrap(VariationType.STRING);
+        }
+      } catch (Exception e) {
+        return throwIfNotGraceful(e, new BanditResult(defaultValue, null));
+      }
+    }
+    String banditKey = config.banditKeyForVariation(flagKey, variation);
+    if (banditKey == null || subject.getActions().isEmpty()) {
+      return new BanditResult(variation, null);
+    }
+    try {
+      String action =
+          assignBanditAction(
+              config,
+              flagKey,
+              banditKey,
+              subject.getKey(),
+              subject.getAttributes(),
+              subject.getActions(),
+              chunk.banditAssignmentsToLog);
+      return new BanditResult(variation, action);
+    } catch (Exception e) {
+      log.warn("Bandit evaluation failed for flag {}: {}", flagKey, e.getMessage(), e);
+      return throwIfNotGraceful(e, new BanditResult(variation, null));
+    }
+  }
+
+  /**
+   * Evaluates many subjects in chunks on the pool, passing each subject's result to the consumer on
+   * the calling thread, in the order of the subjects. Only a bounded number of chunks is in flight
+   * at a time.
+   *
+   * <p>Subject keys are checked as subjects are read, before their chunk is evaluated: a subject
+   * with an empty key is skipped in graceful mode, and otherwise fails the run. If the run fails,
+   * chunks still in flight are cancelled.
+   */
+  private <S, R> void evaluateInBulk(
+      Iterator<S> subjects,
+      Function<S, String> subjectKey,
+      ForkJoinPool pool,
+      final BulkEvaluator<S, R> evaluator,
+      BiConsumer<S, R> consumer,
+      boolean logAssignments) {
+    final boolean collectAssignmentsToLog = logAssignments && assignmentLogger != null;
+    final boolean collectBanditAssignmentsToLog = logAssignments && banditLogger != null;
+    int maxChunksInFlight = pool.getParallelism() * BULK_CHUNKS_IN_FLIGHT_PER_THREAD;
+
+    ArrayDeque<ForkJoinTask<BulkChunk<S, R>>> inFlight = new ArrayDeque<>();
+    try {
+      while (subjects.hasNext()) {
+        final List<S> chunkSubjects = new ArrayList<>(BULK_CHUNK_SIZE);
+        while (chunkSubjects.size() < BULK_CHUNK_SIZE && subjects.hasNext()) {
+          S subject = subjects.next();
+          if (isValidBulkSubjectKey(subjectKey.apply(subject))) {
+            chunkSubjects.add(subject);
+          }
+        }
+        if (chunkSubjects.isEmpty()) {
+          continue;
+        }
+        inFlight.add(
+            pool.submit(
+                new Callable<BulkChunk<S, R>>() {
+                  @Override
+                  public BulkChunk<S, R> call() {
+                    BulkChunk<S, R> chunk =
+                        new BulkChunk<>(
+                            chunkSubjects, collectAssignmentsToLog, collectBanditAssignmentsToLog);
+                    for (S subject : chunkSubjects) {
+                      chunk.results.add(evaluator.evaluate(subject, chunk));
+                    }
+                    return chunk;
+                  }
+                }));
+        if (inFlight.size() >= maxChunksInFlight) {
+          deliver(inFlight.poll().join(), consumer);
+        }
+      }
+      while (!inFlight.isEmpty()) {
+        deliver(inFlight.poll().join(), consumer);
+      }
+    } finally {
+      // Chunks are only left over when the run failed, and their results would be discarded
+      for (ForkJoinTask<BulkChunk<S, R>> task : inFlight) {
+        task.cancel(false);
+      }
+    }
+  }
+
+  /**
+   * Checks a subject key read for bulk evaluation, before any of its chunk is submitted.
+   *
+   * @return whether to evaluate the subject; invalid ones are skipped in graceful mode
+   * @throws IllegalArgumentException if the key is empty, unless in graceful mode
+   */
+  private boolean isValidBulkSubjectKey(@Nullable String subjectKey) {
+    if (subjectKey != null && !subjectKey.isEmpty()) {
+      return true;
+    }
+    if (!isGracefulMode) {
+      throw new IllegalArgumentException("subjectKey must not be empty");
+    }
+    log.warn("skipping subject with an empty key in bulk evaluation");
+    return false;
+  }
+
+  private <S, R> void deliver(BulkChunk<S, R> chunk, BiConsumer<S, R> consumer) {
+    for (int i = 0; i < chunk.subjects.size(); i++) {
+      consumer.accept(chunk.subjects.get(i), chunk.results.get(i));
+    }
+    if (chunk.assignmentsToLog != null) {
+      logAssignments(chunk.assignmentsToLog);
+    }
+    if (chunk.banditAssignmentsToLog != null) {
+      logBanditAssignments(chunk.banditAssignmentsToLog);
+    }
+  }
+
+  /** Evaluates one subject of a bulk run, adding what should be logged to its chunk's lists. */
+  private interface BulkEvaluator<S, R> {
+    R evaluate(S subject, BulkChunk<?, ?> chunk);
+  }
+
+  /** A chunk of subjects evaluated in bulk, and their results once evaluated. */
+  private static final class BulkChunk<S, R> {
+    private final List<S> subjects;
+    private final List<R> results;
+    private final @Nullable List<Assignment> assignmentsToLog;
+    private final @Nullable List<BanditAssignment> banditAssignmentsToLog;
+
+    private BulkChunk(
+        List<S> subjects, boolean collectAssignmentsToLog, boolean collectBanditAssignmentsToLog) {
+      this.subjects = subjects;
+      this.results = new ArrayList<>(subjects.size());
+      this.assignmentsToLog = collectAssignmentsToLog ? new ArrayList<Assignment>() : null;
+      this.banditAssignmentsToLog =
+          collectBanditAssignmentsToLog ? new ArrayList<BanditAssignment>() : null;
+    }
+  }
+
+  private Collection<String> resolveFlagKeys(
+      Configuration config, @Nullable Collection<String> flagKeys) {
+    if (flagKeys != null) {
+      return flagKeys;
+    }
+    if (config.isConfigObfuscated()) {
+      log.warn("flag keys of an obfuscated configuration are hashed; request flags by key");
+      return Collections.emptyList();
+    }
+    return config.getFlagKeys();
+  }
+
+  /**
+   * Evaluates the flags for the prepared subject and adds the assignments to log, if any should be,
+   * to the given list.
+   */
+  private SubjectAssignments assignAll(
+      Configuration config,
+      Collection<String> flagKeys,
+      PreparedSubject subject,
+      long now,
+      @Nullable List<Assignment> assignmentsToLog) {
+    Map<String, EppoValue> values = new LinkedHashMap<>();
+    Map<String, VariationType> variationTypes = new HashMap<>();
+    for (String flagKey : flagKeys) {
+      try {
+        CompiledFlag flag = config.getCompiledFlag(flagKey);
+        if (flag == null) {
+          log.warn("no configuration found for key: {}", flagKey);
+          continue;
+        }
+        EppoValue assignedValue =
+            assignPrepared(config, flag, flagKey, subject, now, assignmentsToLog);
+        if (assignedValue != null) {
+          values.put(flagKey, assignedValue);
+          variationTypes.put(flagKey, flag.getVariationType());
+        }
+      } catch (Exception e) {
+        throwIfNotGraceful(e, null);
+      }
+    }
+    return new SubjectAssignments(subject.getSubjectKey(), values, variationTypes);
+  }
+
+  /**
+   * Assigns the flag to the prepared subject, as of the given time, and adds the assignment to the
+   * given list if it should be logged.
+   *
+   * @return the assigned value, or null if the flag assigned nothing or a value not of its type
+   */
+  @Nullable EppoValue assignPrepared(
+      Configuration config,
+      CompiledFlag flag,
+      String flagKey,
+      PreparedSubject subject,
+      long now,
+      @Nullable List<Assignment> assignmentsToLog) {
+    FlagAssignment assignment =
+        FlagEvaluator.assignFlag(
+            flag,
+            subject.getAttributeView(),
+            subject.getShards(),
+            subject.getConditionResults(),
+            config.isConfigObfuscated(),
+            now);
+    if (assignment == null) {
+      return null;
+    }
+
+    EppoValue assignedValue = assignment.getVariation().getValue();
+    if (assignedValue == null) {
+      return null;
+    }
+
+    if (!valueTypeMatchesExpected(flag.getVariationType(), assignedValue)) {
+      log.warn(
+          "no assigned variation because the flag type doesn't match the variation type: {} has type {}, variation value is {}",
+          flagKey,
+          flag.getVariationType(),
+          assignedValue);
+      return null;
+    }
+
+    if (assignment.doLog() && assignmentsToLog != null && assignmentLogger != null) {
+      try {
+        Assignment assignmentToLog =
+            assignmentToLog(
+                config,
+                flagKey,
+                subject.getSubjectKey(),
+                subject.getAttributes(),
+                assignment.getAllocationKey(),
+                assignment.getVariation(),
+                assignment.getExtraLogging());
+        if (assignmentToLog != null) {
+          assignmentsToLog.add(assignmentToLog);
+        }
+      } catch (Exception e) {
+        log.error("Error logging assignment: {}", e.getMessage(), e);
+      }
+    }
+    return assignedValue;
+  }
+
+  void logAssignments(List<Assignment> assignments) {
+    if (assignments.isEmpty()) {
+      return;
+    }
+    try {
+      assignmentLogger.logAssignments(assignments);
+    } catch (Exception e) {
+      log.error("Error logging assignments: {}", e.getMessage(), e);
+    }
+  }
+
+  private @Nullable FlagAssignment assignFlagCached(
+      EvaluationResultCache resultCache,
+      long configEpoch,
+      Configuration config,
+      CompiledFlag flag,
+      String flagKey,
+      String subjectKey,
+      Attributes subjectAttributes) {
+    long now = clock.currentTimeMillis();
+    // The same allocations, as long as none starts or ends
+    CompiledAllocation[] activeAllocations = flag.getActiveAllocations(now);
+    EvaluationResultCache.Result cached =
+        resultCache.get(configEpoch, flagKey, subjectKey, subjectAttributes, activeAllocations);
+    if (cached != null) {
+      return cached.getAssignment();
+    }
+    FlagAssignment assignment =
+        FlagEvaluator.assignFlag(
+            flag, subjectKey, subjectAttributes, config.isConfigObfuscated(), now);
+    resultCache.put(
+        configEpoch, flagKey, subjectKey, subjectAttributes, activeAllocations, assignment);
+    return assignment;
+  }
+
+  private long configurationEpoch() {
+    return ((ConfigurationStore) configurationStore).getConfigurationEpoch();
+  }
+
   /**
    * Top-level assignment details method that evaluates, logs if applicable, and returns the
    * user-facing AssignmentDetails result class. If any error in the evaluation, the result value
@@ -217,29 +770,17 @@ public class BaseEppoClient {
     Configuration config = getConfiguration();
 
     // Check if flag exists
-    FlagConfig flag = config.getFlag(flagKey);
+    CompiledFlag flag = config.getCompiledFlag(flagKey);
     if (flag == null) {
       log.warn("no configuration found for key: {}", flagKey);
-      return EvaluationDetails.buildDefault(
-          config.getEnvironmentName(),
-          config.getConfigFetchedAt(),
-          config.getConfigPublishedAt(),
-          FlagEvaluationCode.FLAG_UNRECOGNIZED_OR_DISABLED,
-          "Unrecognized or disabled flag: " + flagKey,
-          null);
+      return defaultEvaluationDetails(config).unrecognized(flagKey);
     }
 
     // Check if flag is enabled
     if (!flag.isEnabled()) {
       log.info(
           "no assigned variation because the experiment or feature flag is disabled: {}", flagKey);
-      return EvaluationDetails.buildDefault(
-          config.getEnvironmentName(),
-          config.getConfigFetchedAt(),
-          config.getConfigPublishedAt(),
-          FlagEvaluationCode.FLAG_UNRECOGNIZED_OR_DISABLED,
-          "Unrecognized or disabled flag: " + flagKey,
-          null);
+      return defaultEvaluationDetails(config).disabled(flagKey);
     }
 
     // Check if flag type matches expected type
@@ -249,15 +790,8 @@ public class BaseEppoClient {
           flagKey,
           flag.getVariationType(),
           expectedType);
-      return EvaluationDetails.buildDefault(
-          config.getEnvironmentName(),
-          config.getConfigFetchedAt(),
-          config.getConfigPublishedAt(),
-          FlagEvaluationCode.TYPE_MISMATCH,
-          String.format(
-              "Flag \"%s\" has type %s, requested %s",
-              flagKey, flag.getVariationType(), expectedType),
-          null);
+      return defaultEvaluationDetails(config)
+          .typeMismatch(flagKey, flag.getVariationType(), expectedType);
     }
 
     // Evaluate flag with details
@@ -270,7 +804,8 @@ public class BaseEppoClient {
             config.isConfigObfuscated(),
             config.getEnvironmentName(),
             config.getConfigFetchedAt(),
-            config.getConfigPublishedAt());
+            config.getConfigPublishedAt(),
+            clock.currentTimeMillis());
     EvaluationDetails evaluationDetails = evaluationResult.getEvaluationDetails();
 
     EppoValue assignedValue =
@@ -305,47 +840,95 @@ public class BaseEppoClient {
     }
 
     // Log assignment if applicable
-    if (assignedValue != null && assignmentLogger != null && evaluationResult.doLog()) {
-      try {
-        String allocationKey = evaluationResult.getAllocationKey();
-        String experimentKey =
-            flagKey
-                + '-'
-                + allocationKey; // Our experiment key is derived by hyphenating the flag key and
-        // allocation key
-        String variationKey = evaluationResult.getVariation().getKey();
-        Map<String, String> extraLogging = evaluationResult.getExtraLogging();
-        Map<String, String> metaData = buildLogMetaData(config.isConfigObfuscated());
-
-        Assignment assignment =
-            new Assignment(
-                experimentKey,
-                flagKey,
-                allocationKey,
-                variationKey,
-                subjectKey,
-                subjectAttributes,
-                extraLogging,
-                metaData);
-
-        // Deduplication of assignment logging is possible by providing an `IAssignmentCache`.
-        // Default to true, only avoid logging if there's a cache hit.
-        boolean logAssignment = true;
-        AssignmentCacheEntry cacheEntry = AssignmentCacheEntry.fromVariationAssignment(assignment);
-        if (assignmentCache != null) {
-          logAssignment = assignmentCache.putIfAbsent(cacheEntry);
-        }
+    if (assignedValue != null && evaluationResult.doLog()) {
+      logAssignment(
+          config,
+          flagKey,
+          subjectKey,
+          subjectAttributes,
+          evaluationResult.getAllocationKey(),
+          evaluationResult.getVariation(),
+          evaluationResult.getExtraLogging());
+    }
 
-        if (logAssignment) {
-          assignmentLogger.logAssignment(assignment);
-        }
+    return evaluationDetails;
+  }
 
-      } catch (Exception e) {
-        log.error("Error logging assignment: {}", e.getMessage(), e);
+  private DefaultEvaluationDetails defaultEvaluationDetails(Configuration config) {
+    DefaultEvaluationDetails defaults = defaultEvaluationDetails;
+    if (defaults == null || defaults.getConfiguration() != config) {
+      defaults = new DefaultEvaluationDetails(config);
+      defaultEvaluationDetails = defaults;
+    }
+    return defaults;
+  }
+
+  private void logAssignment(
+      Configuration config,
+      String flagKey,
+      String subjectKey,
+      Attributes subjectAttributes,
+      String allocationKey,
+      Variation variation,
+      Map<String, String> extraLogging) {
+    if (assignmentLogger == null) {
+      return;
+    }
+    try {
+      Assignment assignment =
+          assignmentToLog(
+              config,
+              flagKey,
+              subjectKey,
+              subjectAttributes,
+              allocationKey,
+              variation,
+              extraLogging);
+      if (assignment != null) {
+        assignmentLogger.logAssignment(assignment);
       }
+
+    } catch (Exception e) {
+      log.error("Error logging assignment: {}", e.getMessage(), e);
     }
+  }
 
-    return evaluationDetails;
+  /** Builds the assignment to log, or returns null if the assignment cache has already seen it. */
+  private @Nullable Assignment assignmentToLog(
+      Configuration config,
+      String flagKey,
+      String subjectKey,
+      Attributes subjectAttributes,
+      String allocationKey,
+      Variation variation,
+      Map<String, String> extraLogging) {
+    String experimentKey =
+        flagKey
+            + '-'
+            + allocationKey; // Our experiment key is derived by hyphenating the flag key and
+    // allocation key
+    String variationKey = variation.getKey();
+    Map<String, String> metaData = buildLogMetaData(config.isConfigObfuscated());
+
+    Assignment assignment =
+        new Assignment(
+            experimentKey,
+            flagKey,
+            allocationKey,
+            variationKey,
+            subjectKey,
+            subjectAttributes,
+            extraLogging,
+            metaData);
+
+    // Deduplication of assignment logging is possible by providing an `IAssignmentCache`.
+    // Default to true, only avoid logging if there's a cache hit.
+    boolean logAssignment = true;
+    AssignmentCacheEntry cacheEntry = AssignmentCacheEntry.fromVariationAssignment(assignment);
+    if (assignmentCache != null) {
+      logAssignment = assignmentCache.putIfAbsent(cacheEntry);
+    }
+    return logAssignment ? assignment : null;
   }
 
   private boolean valueTypeMatchesExpected(VariationType expectedType, EppoValue value) {
@@ -386,8 +969,12 @@ public class BaseEppoClient {
 
   public boolean getBooleanAssignment(
       String flagKey, String subjectKey, Attributes subjectAttributes, boolean defaultValue) {
-    return this.getBooleanAssignmentDetails(flagKey, subjectKey, subjectAttributes, defaultValue)
-        .getVariation();
+    try {
+      return this.getTypedAssignment(
+          flagKey, subjectKey, subjectAttributes, defaultValue, VariationType.BOOLEAN);
+    } catch (Exception e) {
+      return throwIfNotGraceful(e, defaultValue);
+    }
   }
 
   public AssignmentDetails<Boolean> getBooleanAssignmentDetails(
@@ -420,8 +1007,12 @@ public class BaseEppoClient {
 
   public int getIntegerAssignment(
       String flagKey, String subjectKey, Attributes subjectAttributes, int defaultValue) {
-    return this.getIntegerAssignmentDetails(flagKey, subjectKey, subjectAttributes, defaultValue)
-        .getVariation();
+    try {
+      return this.getTypedAssignment(
+          flagKey, subjectKey, subjectAttributes, defaultValue, VariationType.INTEGER);
+    } catch (Exception e) {
+      return throwIfNotGraceful(e, defaultValue);
+    }
   }
 
   public AssignmentDetails<Integer> getIntegerAssignmentDetails(
@@ -454,8 +1045,12 @@ public class BaseEppoClient {
 
   public Double getDoubleAssignment(
       String flagKey, String subjectKey, Attributes subjectAttributes, double defaultValue) {
-    return this.getDoubleAssignmentDetails(flagKey, subjectKey, subjectAttributes, defaultValue)
-        .getVariation();
+    try {
+      return this.getTypedAssignment(
+          flagKey, subjectKey, subjectAttributes, defaultValue, VariationType.NUMERIC);
+    } catch (Exception e) {
+      return throwIfNotGraceful(e, defaultValue);
+    }
   }
 
   public AssignmentDetails<Double> getDoubleAssignmentDetails(
@@ -488,8 +1083,12 @@ public class BaseEppoClient {
 
   public String getStringAssignment(
       String flagKey, String subjectKey, Attributes subjectAttributes, String defaultValue) {
-    return this.getStringAssignmentDetails(flagKey, subjectKey, subjectAttributes, defaultValue)
-        .getVariation();
+    try {
+      return this.getTypedAssignment(
+          flagKey, subjectKey, subjectAttributes, defaultValue, VariationType.STRING);
+    } catch (Exception e) {
+      return throwIfNotGraceful(e, defaultValue);
+    }
   }
 
   public AssignmentDetails<String> getStringAssignmentDetails(
@@ -522,8 +1121,12 @@ public class BaseEppoClient {
 
   public JsonNode getJSONAssignment(
       String flagKey, String subjectKey, Attributes subjectAttributes, JsonNode defaultValue) {
-    return this.getJSONAssignmentDetails(flagKey, subjectKey, subjectAttributes, defaultValue)
-        .getVariation();
+    try {
+      return this.getTypedAssignment(
+          flagKey, subjectKey, subjectAttributes, defaultValue, VariationType.JSON);
+    } catch (Exception e) {
+      return throwIfNotGraceful(e, defaultValue);
+    }
   }
 
   public AssignmentDetails<JsonNode> getJSONAssignmentDetails(
@@ -639,51 +1242,9 @@ public class BaseEppoClient {
 
       if (banditKey != null) {
         try {
-          BanditParameters banditParameters = config.getBanditParameters(banditKey);
-          if (banditParameters == null) {
-            throw new RuntimeException("Bandit parameters not found for bandit key: " + banditKey);
-          }
-          BanditEvaluationResult banditResult =
-              BanditEvaluator.evaluateBandit(
-                  flagKey, subjectKey, subjectAttributes, actions, banditParameters.getModelData());
-
-          assignedAction = banditResult.getActionKey();
-
-          // Log bandit assignment if needed
-          if (banditLogger != null) {
-            try {
-              BanditAssignment banditAssignment =
-                  new BanditAssignment(
-                      flagKey,
-                      banditKey,
-                      subjectKey,
-                      banditResult.getActionKey(),
-                      banditResult.getActionWeight(),
-                      banditResult.getOptimalityGap(),
-                      banditParameters.getModelVersion(),
-                      subjectAttributes.getNumericAttributes(),
-                      subjectAttributes.getCategoricalAttributes(),
-                      banditResult.getActionAttributes().getNumericAttributes(),
-                      banditResult.getActionAttributes().getCategoricalAttributes(),
-                      buildLogMetaData(config.isConfigObfuscated()));
-
-              boolean logBanditAssignment = true;
-              AssignmentCacheEntry cacheEntry =
-                  AssignmentCacheEntry.fromBanditAssignment(banditAssignment);
-              if (banditAssignmentCache != null && banditAssignmentCache.hasEntry(cacheEntry)) {
-                logBanditAssignment = false;
-              }
-
-              if (logBanditAssignment) {
-                banditLogger.logBanditAssignment(banditAssignment);
-                if (banditAssignmentCache != null) {
-                  banditAssignmentCache.put(cacheEntry);
-                }
-              }
-            } catch (Exception e) {
-              log.warn("Error logging bandit assignment: {}", e.getMessage(), e);
-            }
-          }
+          assignedAction =
+              assignBanditAction(
+                  config, flagKey, banditKey, subjectKey, subjectAttributes, actions);
 
           // Update evaluation details to include bandit information
           EvaluationDetails updatedDetails =
@@ -737,6 +1298,99 @@ public class BaseEppoClient {
     }
   }
 
+  /**
+   * Chooses the subject's action with the bandit and logs the bandit assignment.
+   *
+   * @throws RuntimeException if the bandit's parameters are missing or evaluating it fails
+   */
+  String assignBanditAction(
+      Configuration config,
+      String flagKey,
+      String banditKey,
+      String subjectKey,
+      DiscriminableAttributes subjectAttributes,
+      Actions actions) {
+    List<BanditAssignment> banditAssignmentsToLog =
+        banditLogger != null ? new ArrayList<BanditAssignment>(1) : null;
+    String action =
+        assignBanditAction(
+            config,
+            flagKey,
+            banditKey,
+            subjectKey,
+            subjectAttributes,
+            actions,
+            banditAssignmentsToLog);
+    if (banditAssignmentsToLog != null) {
+      logBanditAssignments(banditAssignmentsToLog);
+    }
+    return action;
+  }
+
+  /**
+   * Chooses the subject's action with the bandit and adds the bandit assignment to the given list,
+   * if there is one and a bandit logger is set.
+   *
+   * @throws RuntimeException if the bandit's parameters are missing or evaluating it fails
+   */
+  String assignBanditAction(
+      Configuration config,
+      String flagKey,
+      String banditKey,
+      String subjectKey,
+      DiscriminableAttributes subjectAttributes,
+      Actions actions,
+      @Nullable List<BanditAssignment> banditAssignmentsToLog) {
+    BanditParameters banditParameters = config.getBanditParameters(banditKey);
+    if (banditParameters == null) {
+      throw new RuntimeException("Bandit parameters not found for bandit key: " + banditKey);
+    }
+    BanditEvaluationResult banditResult =
+        BanditEvaluator.evaluateBandit(
+            flagKey, subjectKey, subjectAttributes, actions, banditParameters.getModelData());
+
+    if (banditAssignmentsToLog != null && banditLogger != null) {
+      try {
+        banditAssignmentsToLog.add(
+            new BanditAssignment(
+                flagKey,
+                banditKey,
+                subjectKey,
+                banditResult.getActionKey(),
+                banditResult.getActionWeight(),
+                banditResult.getOptimalityGap(),
+                banditParameters.getModelVersion(),
+                subjectAttributes.getNumericAttributes(),
+                subjectAttributes.getCategoricalAttributes(),
+                banditResult.getActionAttributes().getNumericAttributes(),
+                banditResult.getActionAttributes().getCategoricalAttributes(),
+                buildLogMetaData(config.isConfigObfuscated())));
+      } catch (Exception e) {
+        log.warn("Error logging bandit assignment: {}", e.getMessage(), e);
+      }
+    }
+    return banditResult.getActionKey();
+  }
+
+  /** Logs the bandit assignments that aren't in the bandit assignment cache. */
+  void logBanditAssignments(List<BanditAssignment> banditAssignments) {
+    for (BanditAssignment banditAssignment : banditAssignments) {
+      try {
+        AssignmentCacheEntry cacheEntry =
+            AssignmentCacheEntry.fromBanditAssignment(banditAssignment);
+        if (banditAssignmentCache != null && banditAssignmentCache.hasEntry(cacheEntry)) {
+          continue;
+        }
+        banditLogger.logBanditAssignment(banditAssignment);
+        if (banditAssignmentCache != null) {
+          banditAssignmentCache.put(cacheEntry);
+        }
+      } catch (Exception e) {
+        log.warn("Error logging bandit assignment: {}", e.getMessage(), e);
+      }
+    }
+  }
+
   private Map<String, String> buildLogMetaData(boolean isConfigObfuscated) {
     HashMap<String, String> metaData = new HashMap<>();
     metaData.put("obfuscated", Boolean.valueOf(isConfigObfuscated).toString());
@@ -745,7 +1399,7 @@ public class BaseEppoClient {
     return metaData;
   }
 
-  private <T> T throwIfNotGraceful(Exception e, T defaultValue) {
+  <T> T throwIfNotGraceful(Exception e, T defaultValue) {
     if (this.isGracefulMode) {
       log.info("error getting assignment value: {}", e.getMessage());
       return defaultValue;
@@ -757,6 +1411,38 @@ public class BaseEppoClient {
     this.isGracefulMode = isGracefulFailureMode;
   }
 
+  /**
+   * Sets the cache of assignments used by the typed assignment getters, or disables it if null. The
+   * cache needs the configuration epochs of a {@link ConfigurationStore}, so it can't be used with
+   * other configuration stores.
+   */
+  public void setResultCache(@Nullable EvaluationResultCache resultCache) {
+    if (resultCache != null && !(configurationStore instanceof ConfigurationStore)) {
+      log.warn(
+          "result cache not enabled; the configuration store {} doesn't number configurations",
+          configurationStore.getClass().getName());
+      return;
+    }
+    this.resultCache = resultCache;
+  }
+
+  /**
+   * Sets the flags this client uses, by key or prefix, or uses all flags if null. Configurations
+   * fetched from then on leave out the other flags and the bandit models only they reference, which
+   * are then evaluated like unknown flags.
+   */
+  public void setFlagFilter(@Nullable FlagFilter flagFilter) {
+    requestor.setFlagFilter(flagFilter);
+  }
+
+  /**
+   * Sets the clock used to decide which allocations are active, for instance to test scheduled
+   * launches. Defaults to the system clock.
+   */
+  public void setClock(@NotNull Clock clock) {
+    this.clock = clock;
+  }
+
   /**
    * Subscribe to changes to the configuration.
    *
@@ -0,0 +1,59 @@
+package cloud.eppo;
+
+/**
+ * Character sequence that allows only a limited number of character reads, so that matching a
+ * regular expression against it is bounded in time.
+ *
+ * <p>{@link java.util.regex.Matcher} reads its input through {@link #charAt(int)}, so the number of
+ * reads is a deterministic measure of the work a match does. When the budget is spent, reading
+ * throws {@link BudgetExceededException}, which lets a pattern prone to catastrophic backtracking
+ * fail its condition instead of pinning the evaluating thread.
+ */
+final class BoundedCharSequence implements CharSequence {
+  private final CharSequence chars;
+  private final int[] remaining;
+
+  BoundedCharSequence(CharSequence chars, int maxReads) {
+    this(chars, new int[] {maxReads});
+  }
+
+  // Sub-sequences draw from the same budget
+  private BoundedCharSequence(CharSequence chars, int[] remaining) {
+    this.chars = chars;
+    this.remaining = remaining;
+  }
+
+  @Override
+  public int length() {
+    return chars.length();
+  }
+
+  @Override
+  public char charAt(int index) {
+    if (--remaining[0] < 0) {
+      throw BudgetExceededException.INSTANCE;
+    }
+    return chars.charAt(index);
+  }
+
+  @Override
+  public CharSequence subSequence(int start, int end) {
+    return new BoundedCharSequence(chars.subSequence(start, end), remaining);
+  }
+
+  @Override
+  public String toString() {
+    return chars.toString();
+  }
+
+  /** Thrown when the read budget is spent. Shared and without a stack trace, as it is expected. */
+  static final class BudgetExceededException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private static final BudgetExceededException INSTANCE = new BudgetExceededException();
+
+    private BudgetExceededException() {
+      super("Character read budget exceeded", null, false, false);
+    }
+  }
+}
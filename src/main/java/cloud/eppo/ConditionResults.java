@@ -0,0 +1,52 @@
+package cloud.eppo;
+
+import cloud.eppo.model.CompiledCondition;
+import cloud.eppo.model.ConditionTable;
+
+/**
+ * Remembers the outcome of targeting conditions for one subject, so that a condition shared by
+ * several rules, allocations or flags (see {@link ConditionTable}) is evaluated at most once.
+ *
+ * <p>Outcomes are kept in two bitsets indexed by the conditions' positions in their table. Only
+ * conditions from the first table seen are remembered; instances are not thread-safe.
+ */
+final class ConditionResults {
+  private ConditionTable table;
+  private long[] evaluated;
+  private long[] matched;
+
+  /** Whether the condition's outcome can be remembered by this instance. */
+  boolean isTracked(CompiledCondition condition) {
+    ConditionTable conditionTable = condition.getTable();
+    if (conditionTable == null) {
+      return false;
+    }
+    if (table == null) {
+      table = conditionTable;
+      int words = (conditionTable.size() + 63) >>> 6;
+      evaluated = new long[words];
+      matched = new long[words];
+    }
+    return conditionTable == table && condition.getIndex() < (evaluated.length << 6);
+  }
+
+  /** Whether the outcome of a {@linkplain #isTracked tracked} condition is already known. */
+  boolean isEvaluated(CompiledCondition condition) {
+    int index = condition.getIndex();
+    return (evaluated[index >>> 6] & (1L << index)) != 0;
+  }
+
+  /** The remembered outcome of an {@linkplain #isEvaluated evaluated} condition. */
+  boolean matched(CompiledCondition condition) {
+    int index = condition.getIndex();
+    return (matched[index >>> 6] & (1L << index)) != 0;
+  }
+
+  void record(CompiledCondition condition, boolean conditionMatched) {
+    int index = condition.getIndex();
+    evaluated[index >>> 6] |= 1L << index;
+    if (conditionMatched) {
+      matched[index >>> 6] |= 1L << index;
+    }
+  }
+}
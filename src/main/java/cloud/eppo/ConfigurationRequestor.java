@@ -1,11 +1,13 @@
 package cloud.eppo;
 
 import cloud.eppo.api.Configuration;
+import cloud.eppo.api.FlagFilter;
 import cloud.eppo.callback.CallbackManager;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.function.Consumer;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -19,6 +21,7 @@ public class ConfigurationRequestor {
   private CompletableFuture<Void> remoteFetchFuture = null;
   private CompletableFuture<Boolean> configurationFuture = null;
   private boolean initialConfigSet = false;
+  @Nullable private volatile FlagFilter flagFilter;
 
   private final CallbackManager<Configuration> configChangeManager = new CallbackManager<>();
 
@@ -32,6 +35,14 @@ public class ConfigurationRequestor {
     this.supportBandits = supportBandits;
   }
 
+  /**
+   * Sets the flags to keep from fetched configurations, or keeps all of them if null. Applies from
+   * the next fetch.
+   */
+  void setFlagFilter(@Nullable FlagFilter flagFilter) {
+    this.flagFilter = flagFilter;
+  }
+
   // Synchronously set the initial configuration.
   public void setInitialConfiguration(@NotNull Configuration configuration) {
     if (initialConfigSet || this.configurationFuture != null) {
@@ -88,7 +99,8 @@ public class ConfigurationRequestor {
 
     byte[] flagConfigurationJsonBytes = client.get(Constants.FLAG_CONFIG_ENDPOINT);
     Configuration.Builder configBuilder =
-        Configuration.builder(flagConfigurationJsonBytes).banditParametersFromConfig(lastConfig);
+        Configuration.builder(flagConfigurationJsonBytes, flagFilter)
+            .banditParametersFromConfig(lastConfig);
 
     if (supportBandits && configBuilder.requiresUpdatedBanditModels()) {
       byte[] banditParametersJsonBytes = client.get(Constants.BANDIT_ENDPOINT);
@@ -116,7 +128,7 @@ public class ConfigurationRequestor {
                 flagConfigJsonBytes -> {
                   synchronized (this) {
                     Configuration.Builder configBuilder =
-                        Configuration.builder(flagConfigJsonBytes)
+                        Configuration.builder(flagConfigJsonBytes, flagFilter)
                             .banditParametersFromConfig(
                                 lastConfig); // possibly reuse last bandit models loaded.
 
@@ -2,6 +2,7 @@ package cloud.eppo;
 
 import cloud.eppo.api.Configuration;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
 import org.jetbrains.annotations.NotNull;
 
 /** Memory-only configuration store. */
@@ -9,14 +10,26 @@ public class ConfigurationStore implements IConfigurationStore {
 
   // this is the fallback value if no configuration is provided (i.e. by fetch or initial config).
   @NotNull private volatile Configuration configuration = Configuration.emptyConfig();
+  private final AtomicLong configurationEpoch = new AtomicLong();
 
   public ConfigurationStore() {}
 
   public CompletableFuture<Void> saveConfiguration(@NotNull final Configuration configuration) {
     this.configuration = configuration;
+    // Advanced after the configuration is visible, so reading the epoch first and then the
+    // configuration never pairs a configuration with a later epoch than its own
+    configurationEpoch.incrementAndGet();
     return CompletableFuture.completedFuture(null);
   }
 
+  /**
+   * Number of configurations saved so far. It increases with every save, so anything derived from
+   * the configuration can be tagged with it and discarded once it changes.
+   */
+  public long getConfigurationEpoch() {
+    return configurationEpoch.get();
+  }
+
   @NotNull public Configuration getConfiguration() {
     return configuration;
   }
@@ -0,0 +1,96 @@
+package cloud.eppo;
+
+import cloud.eppo.api.Configuration;
+import cloud.eppo.api.EvaluationDetails;
+import cloud.eppo.api.FlagEvaluationCode;
+import cloud.eppo.ufc.dto.VariationType;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Shared, immutable evaluation details served when a flag is disabled or requested as the wrong
+ * type. They only depend on the configuration and the flag, so they are built once per
+ * configuration rather than on every miss.
+ */
+final class DefaultEvaluationDetails {
+  private static final VariationType[] VARIATION_TYPES = VariationType.values();
+  private static final int DISABLED_SLOT = VARIATION_TYPES.length;
+
+  private final Configuration configuration;
+  // Per flag key: one slot per requested type for type mismatches, plus one for the disabled flag
+  private final ConcurrentHashMap<String, AtomicReferenceArray<EvaluationDetails>> detailsByFlag =
+      new ConcurrentHashMap<>();
+
+  DefaultEvaluationDetails(Configuration configuration) {
+    this.configuration = configuration;
+  }
+
+  Configuration getConfiguration() {
+    return configuration;
+  }
+
+  /** Details for a flag that is not present in the configuration; these are not shared. */
+  EvaluationDetails unrecognized(String flagKey) {
+    return build(
+        FlagEvaluationCode.FLAG_UNRECOGNIZED_OR_DISABLED,
+        "Unrecognized or disabled flag: " + flagKey);
+  }
+
+  /** Details for a flag of the configuration that is disabled. */
+  EvaluationDetails disabled(String flagKey) {
+    AtomicReferenceArray<EvaluationDetails> slots = slots(flagKey);
+    EvaluationDetails details = slots.get(DISABLED_SLOT);
+    if (details == null) {
+      details = unrecognized(flagKey);
+      slots.set(DISABLED_SLOT, details);
+    }
+    return details;
+  }
+
+  /** Details for a flag of the configuration that was requested as the wrong type. */
+  EvaluationDetails typeMismatch(
+      String flagKey, VariationType flagType, VariationType expectedType) {
+    AtomicReferenceArray<EvaluationDetails> slots = slots(flagKey);
+    EvaluationDetails details = slots.get(expectedType.ordinal());
+    if (details == null) {
+      details =
+          build(
+              FlagEvaluationCode.TYPE_MISMATCH,
+              String.format(
+                  "Flag \"%s\" has type %s, requested %s", flagKey, flagType, expectedType));
+      slots.set(expectedType.ordinal(), details);
+    }
+    return details;
+  }
+
+  private AtomicReferenceArray<EvaluationDetails> slots(String flagKey) {
+    AtomicReferenceArray<EvaluationDetails> slots = detailsByFlag.get(flagKey);
+    if (slots == null) {
+      slots = new AtomicReferenceArray<>(DISABLED_SLOT + 1);
+      AtomicReferenceArray<EvaluationDetails> existing = detailsByFlag.putIfAbsent(flagKey, slots);
+      if (existing != null) {
+        slots = existing;
+      }
+    }
+    return slots;
+  }
+
+  private EvaluationDetails build(FlagEvaluationCode code, String description) {
+    String environmentName = configuration.getEnvironmentName();
+    return new EvaluationDetails(
+        environmentName != null ? environmentName : "Unknown",
+        configuration.getConfigFetchedAt(),
+        configuration.getConfigPublishedAt(),
+        code,
+        description,
+        null,
+        null,
+        null,
+        null,
+        null,
+        null,
+        Collections.emptyList(),
+        Collections.emptyList());
+  }
+}
@@ -0,0 +1,175 @@
+package cloud.eppo;
+
+import static cloud.eppo.Utils.throwIfEmptyOrNull;
+
+import cloud.eppo.api.Actions;
+import cloud.eppo.api.BanditResult;
+import cloud.eppo.api.Configuration;
+import cloud.eppo.api.ContextAttributes;
+import cloud.eppo.api.DiscriminableAttributes;
+import cloud.eppo.api.EppoValue;
+import cloud.eppo.logging.Assignment;
+import cloud.eppo.model.CompiledFlag;
+import cloud.eppo.ufc.dto.VariationType;
+import com.fasterxml.jackson.databind.JsonNode;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Evaluates flags and bandits for one subject against one configuration, for instance while
+ * handling a request. Obtained from {@link BaseEppoClient#forSubject}.
+ *
+ * <p>The configuration and time in effect when the context was created are used for all of its
+ * evaluations, even if a new configuration is loaded meanwhile, so they are consistent with each
+ * other. The subject is prepared for evaluation once, and the assignment of each flag is computed
+ * (and logged) only the first time it is requested.
+ *
+ * <p>Contexts are meant to be short-lived and used by one thread at a time.
+ */
+public final class EvaluationContext {
+  private static final Logger log = LoggerFactory.getLogger(EvaluationContext.class);
+
+  private final BaseEppoClient client;
+  private final Configuration config;
+  private final DiscriminableAttributes subjectAttributes;
+  private final PreparedSubject subject;
+  private final long now;
+  private final Map<String, FlagResult> flagResults = new HashMap<>();
+  private DiscriminableAttributes banditAttributes;
+
+  EvaluationContext(
+      BaseEppoClient client,
+      Configuration config,
+      String subjectKey,
+      DiscriminableAttributes subjectAttributes,
+      long now) {
+    this.client = client;
+    this.config = config;
+    this.subjectAttributes = subjectAttributes;
+    this.subject =
+        new PreparedSubject(
+            subjectKey, subjectAttributes.getAllAttributes(), config.isConfigObfuscated());
+    this.now = now;
+  }
+
+  /** The configuration all evaluations of this context use. */
+  public Configuration getConfiguration() {
+    return config;
+  }
+
+  public String getSubjectKey() {
+    return subject.getSubjectKey();
+  }
+
+  public boolean getBooleanAssignment(String flagKey, boolean defaultValue) {
+    return getTypedAssignment(flagKey, defaultValue, VariationType.BOOLEAN);
+  }
+
+  public int getIntegerAssignment(String flagKey, int defaultValue) {
+    return getTypedAssignment(flagKey, defaultValue, VariationType.INTEGER);
+  }
+
+  public double getDoubleAssignment(String flagKey, double defaultValue) {
+    return getTypedAssignment(flagKey, defaultValue, VariationType.NUMERIC);
+  }
+
+  public String getStringAssignment(String flagKey, String defaultValue) {
+    return getTypedAssignment(flagKey, defaultValue, VariationType.STRING);
+  }
+
+  public JsonNode getJSONAssignment(String flagKey, JsonNode defaultValue) {
+    return getTypedAssignment(flagKey, defaultValue, VariationType.JSON);
+  }
+
+  /**
+   * Same as {@link BaseEppoClient#getBanditAction}. The flag's assignment is memoized like any
+   * other, while the action is chosen on every call since the actions may differ.
+   */
+  public BanditResult getBanditAction(String flagKey, Actions actions, String defaultValue) {
+    String variation = getStringAssignment(flagKey, defaultValue);
+    String banditKey = config.banditKeyForVariation(flagKey, variation);
+    if (banditKey == null || actions.isEmpty()) {
+      return new BanditResult(variation, null);
+    }
+    try {
+      String action =
+          client.assignBanditAction(
+              config, flagKey, banditKey, getSubjectKey(), banditAttributes(), actions);
+      return new BanditResult(variation, action);
+    } catch (Exception e) {
+      log.warn("Bandit evaluation failed for flag {}: {}", flagKey, e.getMessage(), e);
+      return client.throwIfNotGraceful(e, new BanditResult(variation, null));
+    }
+  }
+
+  private DiscriminableAttributes banditAttributes() {
+    if (banditAttributes == null) {
+      // Split the attributes into numeric and categorical once, rather than for every bandit
+      banditAttributes =
+          new ContextAttributes(
+              subjectAttributes.getNumericAttributes(),
+              subjectAttributes.getCategoricalAttributes());
+    }
+    return banditAttributes;
+  }
+
+  private <T> T getTypedAssignment(String flagKey, T defaultValue, VariationType expectedType) {
+    try {
+      throwIfEmptyOrNull(flagKey, "flagKey must not be empty");
+      FlagResult result = evaluate(flagKey);
+      if (result.variationType == null) {
+        return defaultValue;
+      }
+      if (result.variationType != expectedType) {
+        log.warn(
+            "no assigned variation because the flag type doesn't match the requested type: {} has type {}, requested {}",
+            flagKey,
+            result.variationType,
+            expectedType);
+        return defaultValue;
+      }
+      return result.value == null ? defaultValue : result.value.<T>unwrap(expectedType);
+    } catch (Exception e) {
+      return client.throwIfNotGraceful(e, defaultValue);
+    }
+  }
+
+  private FlagResult evaluate(String flagKey) {
+    FlagResult result = flagResults.get(flagKey);
+    if (result != null) {
+      return result;
+    }
+
+    CompiledFlag flag = config.getCompiledFlag(flagKey);
+    if (flag == null) {
+      log.warn("no configuration found for key: {}", flagKey);
+      result = new FlagResult(null, null);
+    } else {
+      List<Assignment> assignmentsToLog = new ArrayList<>(1);
+      EppoValue value =
+          client.assignPrepared(config, flag, flagKey, subject, now, assignmentsToLog);
+      client.logAssignments(assignmentsToLog);
+      result = new FlagResult(flag.getVariationType(), value);
+    }
+    flagResults.put(flagKey, result);
+    return result;
+  }
+
+  /** The outcome of evaluating a flag for the subject. */
+  private static final class FlagResult {
+    // Null if the flag is unknown
+    private final @Nullable VariationType variationType;
+    // Null if the flag assigned nothing
+    private final @Nullable EppoValue value;
+
+    private FlagResult(@Nullable VariationType variationType, @Nullable EppoValue value) {
+      this.variationType = variationType;
+      this.value = value;
+    }
+  }
+}
@@ -0,0 +1,276 @@
+package cloud.eppo;
+
+import cloud.eppo.model.CompiledAllocation;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.commons.collections4.map.AbstractLinkedMap;
+import org.apache.commons.collections4.map.LRUMap;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A bounded cache of flag assignments by flag, subject key and subject attributes, for clients that
+ * repeatedly evaluate the same subjects. Enable it with {@link
+ * BaseEppoClient#setResultCache(EvaluationResultCache)}.
+ *
+ * <p>An assignment only depends on the configuration and, for scheduled allocations, on the time.
+ * Cached assignments are therefore dropped all at once when a new configuration is saved, which
+ * {@link ConfigurationStore} numbers with an increasing epoch, and are not used once the flag's
+ * active allocations change. Logging is unaffected: cached assignments are logged as if they had
+ * just been evaluated.
+ *
+ * <p>The cache is split into segments, each a synchronized LRU map, so that concurrent lookups
+ * seldom contend. Entries are evicted per segment, least recently used first.
+ */
+public final class EvaluationResultCache {
+  private static final int SEGMENT_COUNT = 16;
+
+  private final int maxSize;
+  private final Segment[] segments;
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong evictions = new AtomicLong();
+  private final AtomicLong invalidations = new AtomicLong();
+  private volatile long epoch = Long.MIN_VALUE;
+
+  public EvaluationResultCache(int maxSize) {
+    if (maxSize <= 0) {
+      throw new IllegalArgumentException("maxSize must be positive");
+    }
+    this.maxSize = maxSize;
+    int segmentCount = Math.min(SEGMENT_COUNT, maxSize);
+    int segmentSize = (maxSize + segmentCount - 1) / segmentCount;
+    this.segments = new Segment[segmentCount];
+    for (int i = 0; i < segmentCount; i++) {
+      segments[i] = new Segment(segmentSize);
+    }
+  }
+
+  /**
+   * Returns the cached result of assigning the flag with the given active allocations to the
+   * subject, or null if there is none for the configuration epoch.
+   */
+  @Nullable Result get(
+      long configEpoch,
+      String flagKey,
+      String subjectKey,
+      @Nullable Map<String, ?> subjectAttributes,
+      CompiledAllocation[] activeAllocations) {
+    if (!isCurrentEpoch(configEpoch)) {
+      misses.incrementAndGet();
+      return null;
+    }
+    Key key = new Key(flagKey, subjectKey, subjectAttributes);
+    Segment segment = segmentFor(key);
+    Result result;
+    synchronized (segment) {
+      result = segment.get(key);
+    }
+    if (result == null
+        || result.configEpoch != configEpoch
+        || result.activeAllocations != activeAllocations) {
+      misses.incrementAndGet();
+      return null;
+    }
+    hits.incrementAndGet();
+    return result;
+  }
+
+  /** Caches the result of assigning the flag with the given active allocations to the subject. */
+  void put(
+      long configEpoch,
+      String flagKey,
+      String subjectKey,
+      @Nullable Map<String, ?> subjectAttributes,
+      CompiledAllocation[] activeAllocations,
+      @Nullable FlagAssignment assignment) {
+    if (!isCurrentEpoch(configEpoch)) {
+      return;
+    }
+    // Copy the attributes, which the caller may change later
+    Key key =
+        new Key(
+            flagKey,
+            subjectKey,
+            subjectAttributes == null || subjectAttributes.isEmpty()
+                ? null
+                : Collections.unmodifiableMap(new HashMap<>(subjectAttributes)));
+    Result result = new Result(configEpoch, activeAllocations, assignment);
+    Segment segment = segmentFor(key);
+    synchronized (segment) {
+      segment.put(key, result);
+    }
+  }
+
+  /**
+   * Whether the epoch is the current one, moving to it and dropping all entries if it is newer.
+   * Results computed from older configurations are neither returned nor cached.
+   */
+  private boolean isCurrentEpoch(long configEpoch) {
+    if (configEpoch == epoch) {
+      return true;
+    }
+    synchronized (this) {
+      if (configEpoch > epoch) {
+        for (Segment segment : segments) {
+          synchronized (segment) {
+            segment.clear();
+          }
+        }
+        epoch = configEpoch;
+        invalidations.incrementAndGet();
+      }
+      return configEpoch == epoch;
+    }
+  }
+
+  private Segment segmentFor(Key key) {
+    // Spread the hash so that segments are picked by its high bits too
+    int hash = key.hashCode;
+    hash ^= hash >>> 16;
+    return segments[(hash & Integer.MAX_VALUE) % segments.length];
+  }
+
+  /** Removes all entries. */
+  public void clear() {
+    for (Segment segment : segments) {
+      synchronized (segment) {
+        segment.clear();
+      }
+    }
+  }
+
+  /** Number of assignments currently cached. */
+  public int size() {
+    int size = 0;
+    for (Segment segment : segments) {
+      synchronized (segment) {
+        size += segment.size();
+      }
+    }
+    return size;
+  }
+
+  public int getMaxSize() {
+    return maxSize;
+  }
+
+  public long getHitCount() {
+    return hits.get();
+  }
+
+  public long getMissCount() {
+    return misses.get();
+  }
+
+  /** Share of lookups that found a cached assignment, or 0 if there were none. */
+  public double getHitRate() {
+    long hitCount = hits.get();
+    long lookupCount = hitCount + misses.get();
+    return lookupCount == 0 ? 0 : (double) hitCount / lookupCount;
+  }
+
+  /** Number of entries evicted to make room for others. */
+  public long getEvictionCount() {
+    return evictions.get();
+  }
+
+  /** Number of times all entries were dropped because a new configuration was saved. */
+  public long getInvalidationCount() {
+    return invalidations.get();
+  }
+
+  @Override
+  public String toString() {
+    return "EvaluationResultCache{"
+        + "size="
+        + size()
+        + ", maxSize="
+        + maxSize
+        + ", hits="
+        + hits.get()
+        + ", misses="
+        + misses.get()
+        + ", evictions="
+        + evictions.get()
+        + ", invalidations="
+        + invalidations.get()
+        + '}';
+  }
+
+  /** A cached assignment, which is null if the flag assigned nothing. */
+  static final class Result {
+    private final long configEpoch;
+    private final CompiledAllocation[] activeAllocations;
+    private final @Nullable FlagAssignment assignment;
+
+    private Result(
+        long configEpoch,
+        CompiledAllocation[] activeAllocations,
+        @Nullable FlagAssignment assignment) {
+      this.configEpoch = configEpoch;
+      this.activeAllocations = activeAllocations;
+      this.assignment = assignment;
+    }
+
+    @Nullable FlagAssignment getAssignment() {
+      return assignment;
+    }
+  }
+
+  private static final class Key {
+    private final String flagKey;
+    private final String subjectKey;
+    private final @Nullable Map<String, ?> subjectAttributes;
+    private final int hashCode;
+
+    private Key(String flagKey, String subjectKey, @Nullable Map<String, ?> subjectAttributes) {
+      this.flagKey = flagKey;
+      this.subjectKey = subjectKey;
+      this.subjectAttributes =
+          subjectAttributes == null || subjectAttributes.isEmpty() ? null : subjectAttributes;
+      int hash = flagKey.hashCode();
+      hash = 31 * hash + subjectKey.hashCode();
+      hash = 31 * hash + (this.subjectAttributes == null ? 0 : this.subjectAttributes.hashCode());
+      this.hashCode = hash;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) o;
+      return hashCode == other.hashCode
+          && flagKey.equals(other.flagKey)
+          && subjectKey.equals(other.subjectKey)
+          && (subjectAttributes == null
+              ? other.subjectAttributes == null
+              : subjectAttributes.equals(other.subjectAttributes));
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+  }
+
+  /** An LRU map counting its evictions. */
+  private final class Segment extends LRUMap<Key, Result> {
+    private static final long serialVersionUID = 1L;
+
+    private Segment(int maxSize) {
+      super(maxSize);
+    }
+
+    @Override
+    protected boolean removeLRU(AbstractLinkedMap.LinkEntry<Key, Result> entry) {
+      evictions.incrementAndGet();
+      return true;
+    }
+  }
+}
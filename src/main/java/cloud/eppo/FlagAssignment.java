@@ -0,0 +1,55 @@
+package cloud.eppo;
+
+import cloud.eppo.ufc.dto.Variation;
+import java.util.Map;
+
+/**
+ * Outcome of a lean flag evaluation: just what is needed to serve and log an assignment, without
+ * the evaluation details built by {@link FlagEvaluationResult}.
+ */
+public class FlagAssignment {
+
+  private final String allocationKey;
+  private final Variation variation;
+  private final Map<String, String> extraLogging;
+  private final boolean doLog;
+
+  public FlagAssignment(
+      String allocationKey, Variation variation, Map<String, String> extraLogging, boolean doLog) {
+    this.allocationKey = allocationKey;
+    this.variation = variation;
+    this.extraLogging = extraLogging;
+    this.doLog = doLog;
+  }
+
+  @Override
+  public String toString() {
+    return "FlagAssignment{"
+        + "allocationKey='"
+        + allocationKey
+        + '\''
+        + ", variation="
+        + variation
+        + ", extraLogging="
+        + extraLogging
+        + ", doLog="
+        + doLog
+        + '}';
+  }
+
+  public String getAllocationKey() {
+    return allocationKey;
+  }
+
+  public Variation getVariation() {
+    return variation;
+  }
+
+  public Map<String, String> getExtraLogging() {
+    return extraLogging;
+  }
+
+  public boolean doLog() {
+    return doLog;
+  }
+}
@@ -1,37 +1,46 @@
 package cloud.eppo;
 
-import static cloud.eppo.Utils.base64Decode;
-import static cloud.eppo.Utils.getMD5Hex;
-import static cloud.eppo.Utils.getShard;
-
-import cloud.eppo.api.AllocationDetails;
 import cloud.eppo.api.AllocationEvaluationCode;
+import cloud.eppo.api.AttributeView;
 import cloud.eppo.api.Attributes;
-import cloud.eppo.api.EppoValue;
+import cloud.eppo.api.EvaluationDetails;
 import cloud.eppo.api.FlagEvaluationCode;
-import cloud.eppo.api.MatchedRule;
-import cloud.eppo.api.RuleCondition;
-import cloud.eppo.model.ShardRange;
-import cloud.eppo.ufc.dto.Allocation;
+import cloud.eppo.api.MapAttributeView;
+import cloud.eppo.model.CompiledAllocation;
+import cloud.eppo.model.CompiledFlag;
+import cloud.eppo.model.CompiledRule;
+import cloud.eppo.model.CompiledShard;
+import cloud.eppo.model.CompiledSplit;
 import cloud.eppo.ufc.dto.FlagConfig;
-import cloud.eppo.ufc.dto.Shard;
-import cloud.eppo.ufc.dto.Split;
-import cloud.eppo.ufc.dto.TargetingRule;
 import cloud.eppo.ufc.dto.Variation;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
-import java.util.HashMap;
-import java.util.LinkedList;
-import java.util.List;
 import java.util.Map;
-import java.util.Set;
-import java.util.stream.Collectors;
+import org.jetbrains.annotations.Nullable;
 
 public class FlagEvaluator {
+  private static final byte MATCH = (byte) AllocationEvaluationCode.MATCH.ordinal();
+  private static final byte FAILING_RULE = (byte) AllocationEvaluationCode.FAILING_RULE.ordinal();
+  private static final byte BEFORE_START_TIME =
+      (byte) AllocationEvaluationCode.BEFORE_START_TIME.ordinal();
+  private static final byte AFTER_END_TIME =
+      (byte) AllocationEvaluationCode.AFTER_END_TIME.ordinal();
+  private static final byte TRAFFIC_EXPOSURE_MISS =
+      (byte) AllocationEvaluationCode.TRAFFIC_EXPOSURE_MISS.ordinal();
+  private static final byte UNEVALUATED = (byte) AllocationEvaluationCode.UNEVALUATED.ordinal();
+
+  // Stands in for the attributes of flags without rules, which never read them
+  private static final AttributeView NO_ATTRIBUTES = new MapAttributeView(null);
 
   /**
    * Evaluates a flag and returns detailed evaluation information including allocation statuses,
    * matched rules, and evaluation codes. This is useful for debugging and understanding why a
    * particular variation was assigned.
+   *
+   * <p>The flag is compiled for this single evaluation; prefer {@link #evaluateFlag(CompiledFlag,
+   * String, String, Attributes, boolean, String, Date, Date)} with the plan precompiled by the
+   * {@link cloud.eppo.api.Configuration}.
    */
   public static FlagEvaluationResult evaluateFlag(
       FlagConfig flag,
@@ -42,271 +51,374 @@ public class FlagEvaluator {
       String environmentName,
       Date configFetchedAt,
       Date configPublishedAt) {
-    Date now = new Date();
-
-    FlagEvaluationResult.Builder builder =
-        new FlagEvaluationResult.Builder()
-            .flagKey(flagKey)
-            .subjectKey(subjectKey)
-            .subjectAttributes(subjectAttributes)
-            .extraLogging(new HashMap<>())
-            .environmentName(environmentName != null ? environmentName : "Unknown")
-            .configFetchedAt(configFetchedAt)
-            .configPublishedAt(configPublishedAt);
+    return evaluateFlag(
+        CompiledFlag.compile(flag, isConfigObfuscated),
+        flagKey,
+        subjectKey,
+        subjectAttributes,
+        isConfigObfuscated,
+        environmentName,
+        configFetchedAt,
+        configPublishedAt);
+  }
+
+  /**
+   * Evaluates a compiled flag and returns detailed evaluation information including allocation
+   * statuses, matched rules, and evaluation codes.
+   */
+  public static FlagEvaluationResult evaluateFlag(
+      CompiledFlag flag,
+      String flagKey,
+      String subjectKey,
+      Attributes subjectAttributes,
+      boolean isConfigObfuscated,
+      String environmentName,
+      Date configFetchedAt,
+      Date configPublishedAt) {
+    return evaluateFlag(
+        flag,
+        flagKey,
+        subjectKey,
+        subjectAttributes,
+        isConfigObfuscated,
+        environmentName,
+        configFetchedAt,
+        configPublishedAt,
+        System.currentTimeMillis());
+  }
+
+  /**
+   * Same as {@link #evaluateFlag(CompiledFlag, String, String, Attributes, boolean, String, Date,
+   * Date)}, deciding which allocations are active as of the given time in epoch millis.
+   */
+  public static FlagEvaluationResult evaluateFlag(
+      CompiledFlag flag,
+      String flagKey,
+      String subjectKey,
+      Attributes subjectAttributes,
+      boolean isConfigObfuscated,
+      String environmentName,
+      Date configFetchedAt,
+      Date configPublishedAt,
+      long now) {
+    CompiledAllocation[] allocations = flag.getAllocations();
+    // Compact trace of the evaluation; details are only materialized if requested
+    byte[] allocationCodes = new byte[allocations.length];
 
     // Handle disabled flag
     if (!flag.isEnabled()) {
-      builder
-          .doLog(false)
-          .flagEvaluationCode(FlagEvaluationCode.FLAG_UNRECOGNIZED_OR_DISABLED)
-          .flagEvaluationDescription("Unrecognized or disabled flag: " + flagKey);
-
       // All allocations are unevaluated for disabled flags
-      if (flag.getAllocations() != null) {
-        for (int i = 0; i < flag.getAllocations().size(); i++) {
-          Allocation allocation = flag.getAllocations().get(i);
-          String allocationKey =
-              isConfigObfuscated ? base64Decode(allocation.getKey()) : allocation.getKey();
-          builder.addUnevaluatedAllocation(
-              new AllocationDetails(allocationKey, AllocationEvaluationCode.UNEVALUATED, i + 1));
-        }
-      }
-
-      return builder.build();
+      Arrays.fill(allocationCodes, UNEVALUATED);
+      return buildResult(
+          flag,
+          flagKey,
+          subjectKey,
+          subjectAttributes,
+          null,
+          isConfigObfuscated,
+          environmentName,
+          configFetchedAt,
+          configPublishedAt,
+          FlagEvaluationCode.FLAG_UNRECOGNIZED_OR_DISABLED,
+          allocationCodes,
+          -1,
+          null,
+          null);
     }
 
-    List<Allocation> allocationsToConsider =
-        flag.getAllocations() != null ? flag.getAllocations() : new LinkedList<>();
-
-    int allocationPosition = 0;
-    boolean foundMatch = false;
+    // For convenience, automatically include subject key as "id" attribute if not provided
+    AttributeView subjectAttributesToEvaluate =
+        MapAttributeView.forSubject(subjectKey, subjectAttributes);
+    if (isConfigObfuscated) {
+      // Attributes are looked up by hashed name; index them once for the whole evaluation
+      subjectAttributesToEvaluate = HashedAttributeView.of(subjectAttributesToEvaluate);
+    }
+    // Salts and conditions are often shared between allocations; compute each once
+    SubjectShards subjectShards = new SubjectShards(subjectKey);
+    ConditionResults conditionResults = new ConditionResults();
 
-    for (Allocation allocation : allocationsToConsider) {
-      allocationPosition++;
-      String allocationKey = allocation.getKey();
-      String deobfuscatedAllocationKey =
-          isConfigObfuscated ? base64Decode(allocationKey) : allocationKey;
+    for (int i = 0; i < allocations.length; i++) {
+      CompiledAllocation allocation = allocations[i];
 
       // Check if allocation is time-bound and not yet active
-      if (allocation.getStartAt() != null && allocation.getStartAt().after(now)) {
-        builder.addUnmatchedAllocation(
-            new AllocationDetails(
-                deobfuscatedAllocationKey,
-                AllocationEvaluationCode.BEFORE_START_TIME,
-                allocationPosition));
+      if (allocation.getStartAt() > now) {
+        allocationCodes[i] = BEFORE_START_TIME;
         continue;
       }
 
       // Check if allocation is time-bound and no longer active
-      if (allocation.getEndAt() != null && allocation.getEndAt().before(now)) {
-        builder.addUnmatchedAllocation(
-            new AllocationDetails(
-                deobfuscatedAllocationKey,
-                AllocationEvaluationCode.AFTER_END_TIME,
-                allocationPosition));
+      if (allocation.getEndAt() < now) {
+        allocationCodes[i] = AFTER_END_TIME;
         continue;
       }
 
-      // For convenience, automatically include subject key as "id" attribute if not provided
-      Attributes subjectAttributesToEvaluate = new Attributes(subjectAttributes);
-      if (!subjectAttributesToEvaluate.containsKey("id")) {
-        subjectAttributesToEvaluate.put("id", subjectKey);
-      }
-
       // Check rules
-      TargetingRule matchedTargetingRule = null;
-      if (allocation.getRules() != null && !allocation.getRules().isEmpty()) {
+      CompiledRule matchedTargetingRule = null;
+      if (allocation.hasRules()) {
         matchedTargetingRule =
             RuleEvaluator.findMatchingRule(
-                subjectAttributesToEvaluate, allocation.getRules(), isConfigObfuscated);
+                subjectAttributesToEvaluate,
+                allocation.getRules(),
+                isConfigObfuscated,
+                conditionResults);
 
         if (matchedTargetingRule == null) {
           // Rules are defined but none match
-          builder.addUnmatchedAllocation(
-              new AllocationDetails(
-                  deobfuscatedAllocationKey,
-                  AllocationEvaluationCode.FAILING_RULE,
-                  allocationPosition));
+          allocationCodes[i] = FAILING_RULE;
           continue;
         }
       }
 
       // This allocation has matched rules; find variation in splits
-      Variation variation = null;
-      Map<String, String> extraLogging = new HashMap<>();
-      Split matchedSplit = null;
-
-      for (Split split : allocation.getSplits()) {
-        if (allShardsMatch(split, subjectKey, flag.getTotalShards(), isConfigObfuscated)) {
-          variation = flag.getVariations().get(split.getVariationKey());
-          if (variation == null) {
-            throw new RuntimeException("Unknown split variation key: " + split.getVariationKey());
-          }
-          extraLogging = split.getExtraLogging();
-          matchedSplit = split;
-          break;
-        }
-      }
+      CompiledSplit matchedSplit = findSplit(allocation, subjectShards, flag.getTotalShards());
 
-      if (variation == null) {
+      if (matchedSplit == null) {
         // Rules matched but subject doesn't fall in traffic split
-        builder.addUnmatchedAllocation(
-            new AllocationDetails(
-                deobfuscatedAllocationKey,
-                AllocationEvaluationCode.TRAFFIC_EXPOSURE_MISS,
-                allocationPosition));
+        allocationCodes[i] = TRAFFIC_EXPOSURE_MISS;
         continue;
       }
 
-      foundMatch = true;
-
-      // Deobfuscate if needed
-      if (isConfigObfuscated) {
-        allocationKey = deobfuscatedAllocationKey;
-        String key = base64Decode(variation.getKey());
-        EppoValue decodedValue = EppoValue.nullValue();
-        if (!variation.getValue().isNull()) {
-          String stringValue = base64Decode(variation.getValue().stringValue());
-          switch (flag.getVariationType()) {
-            case BOOLEAN:
-              decodedValue = EppoValue.valueOf("true".equals(stringValue));
-              break;
-            case INTEGER:
-            case NUMERIC:
-              decodedValue = EppoValue.valueOf(Double.parseDouble(stringValue));
-              break;
-            case STRING:
-            case JSON:
-              decodedValue = EppoValue.valueOf(stringValue);
-              break;
-            default:
-              throw new UnsupportedOperationException(
-                  "Unexpected variation type for decoding obfuscated variation: "
-                      + flag.getVariationType());
-          }
-        }
-        variation = new Variation(key, decodedValue);
-
-        // Deobfuscate extraLogging if present
-        if (extraLogging != null && !extraLogging.isEmpty()) {
-          Map<String, String> deobfuscatedExtraLogging = new HashMap<>();
-          for (Map.Entry<String, String> entry : extraLogging.entrySet()) {
-            try {
-              String deobfuscatedKey = base64Decode(entry.getKey());
-              String deobfuscatedValue = base64Decode(entry.getValue());
-              deobfuscatedExtraLogging.put(deobfuscatedKey, deobfuscatedValue);
-            } catch (Exception e) {
-              // If deobfuscation fails, keep the original key-value pair
-              deobfuscatedExtraLogging.put(entry.getKey(), entry.getValue());
-            }
-          }
-          extraLogging = deobfuscatedExtraLogging;
-        }
-      }
+      // Mark remaining allocations as unevaluated
+      allocationCodes[i] = MATCH;
+      Arrays.fill(allocationCodes, i + 1, allocationCodes.length, UNEVALUATED);
+
+      return buildResult(
+          flag,
+          flagKey,
+          subjectKey,
+          subjectAttributes,
+          subjectAttributesToEvaluate,
+          isConfigObfuscated,
+          environmentName,
+          configFetchedAt,
+          configPublishedAt,
+          FlagEvaluationCode.MATCH,
+          allocationCodes,
+          i,
+          matchedTargetingRule,
+          matchedSplit);
+    }
 
-      // Build matched rule details if applicable
-      MatchedRule matchedRule = null;
-      if (matchedTargetingRule != null) {
-        Set<RuleCondition> conditions =
-            matchedTargetingRule.getConditions().stream()
-                .map(
-                    tc -> {
-                      // Deobfuscate attribute name if config is obfuscated
-                      String attribute = tc.getAttribute();
-                      if (isConfigObfuscated) {
-                        // Find the original attribute name by matching the MD5 hash
-                        for (Map.Entry<String, EppoValue> entry :
-                            subjectAttributesToEvaluate.entrySet()) {
-                          if (getMD5Hex(entry.getKey()).equals(attribute)) {
-                            attribute = entry.getKey();
-                            break;
-                          }
-                        }
-                      }
-
-                      // Condition values are already handled by RuleEvaluator during evaluation
-                      // For display purposes, we keep the raw value
-                      return new RuleCondition(attribute, tc.getOperator().value, tc.getValue());
-                    })
-                .collect(Collectors.toSet());
-        matchedRule = new MatchedRule(conditions);
-      }
+    // If no match was found, return default with appropriate code
+    return buildResult(
+        flag,
+        flagKey,
+        subjectKey,
+        subjectAttributes,
+        subjectAttributesToEvaluate,
+        isConfigObfuscated,
+        environmentName,
+        configFetchedAt,
+        configPublishedAt,
+        FlagEvaluationCode.DEFAULT_ALLOCATION_NULL,
+        allocationCodes,
+        -1,
+        null,
+        null);
+  }
 
-      // Determine evaluation description
-      String description;
-      if (matchedRule != null) {
-        // Check if we need to include traffic assignment details
-        // Include traffic details if there are multiple splits OR multiple shards
-        boolean hasMultipleSplits = allocation.getSplits().size() > 1;
-        boolean hasMultipleShards =
-            matchedSplit.getShards() != null && matchedSplit.getShards().size() > 1;
-
-        if (hasMultipleSplits || hasMultipleShards) {
-          description =
-              String.format(
-                  "Supplied attributes match rules defined in allocation \"%s\" and %s belongs to the range of traffic assigned to \"%s\".",
-                  allocationKey, subjectKey, variation.getKey());
-        } else {
-          description =
-              String.format(
-                  "Supplied attributes match rules defined in allocation \"%s\".", allocationKey);
-        }
-      } else {
-        description =
-            String.format(
-                "%s belongs to the range of traffic assigned to \"%s\" defined in allocation \"%s\".",
-                subjectKey, variation.getKey(), allocationKey);
-      }
+  private static FlagEvaluationResult buildResult(
+      CompiledFlag flag,
+      String flagKey,
+      String subjectKey,
+      Attributes subjectAttributes,
+      AttributeView subjectAttributesEvaluated,
+      boolean isConfigObfuscated,
+      String environmentName,
+      Date configFetchedAt,
+      Date configPublishedAt,
+      FlagEvaluationCode flagEvaluationCode,
+      byte[] allocationCodes,
+      int matchedAllocationIndex,
+      @Nullable CompiledRule matchedTargetingRule,
+      @Nullable CompiledSplit matchedSplit) {
+    String allocationKey = null;
+    Variation variation = null;
+    Map<String, String> extraLogging = Collections.emptyMap();
+    boolean doLog = false;
+    if (matchedSplit != null) {
+      // Variations, allocation keys and extra logging were deobfuscated at compile time
+      CompiledAllocation allocation = flag.getAllocations()[matchedAllocationIndex];
+      allocationKey = allocation.getKey();
+      variation = flag.getVariation(matchedSplit);
+      extraLogging = matchedSplit.getExtraLogging();
+      doLog = allocation.doLog();
+    }
 
-      // TODO check type
+    EvaluationDetails evaluationDetails =
+        new TracedEvaluationDetails(
+            environmentName != null ? environmentName : "Unknown",
+            configFetchedAt,
+            configPublishedAt,
+            flagEvaluationCode,
+            flag,
+            flagKey,
+            subjectKey,
+            subjectAttributesEvaluated,
+            isConfigObfuscated,
+            allocationCodes,
+            matchedAllocationIndex,
+            matchedTargetingRule,
+            matchedSplit,
+            variation);
+
+    return new FlagEvaluationResult(
+        flagKey,
+        subjectKey,
+        subjectAttributes,
+        allocationKey,
+        variation,
+        extraLogging,
+        doLog,
+        evaluationDetails);
+  }
 
-      builder
-          .allocationKey(allocationKey)
-          .variation(variation)
-          .extraLogging(extraLogging)
-          .doLog(allocation.doLog())
-          .flagEvaluationCode(FlagEvaluationCode.MATCH)
-          .flagEvaluationDescription(description)
-          .matchedRule(matchedRule)
-          .matchedAllocation(
-              new AllocationDetails(
-                  allocationKey, AllocationEvaluationCode.MATCH, allocationPosition));
+  /**
+   * Evaluates a compiled flag computing only what is needed to serve and log an assignment. No
+   * evaluation details, descriptions or matched rules are built; use {@link
+   * #evaluateFlag(CompiledFlag, String, String, Attributes, boolean, String, Date, Date)} for
+   * those.
+   *
+   * @return the assignment, or null if the flag is disabled or no allocation matched
+   */
+  public static @Nullable FlagAssignment assignFlag(
+      CompiledFlag flag,
+      String subjectKey,
+      Attributes subjectAttributes,
+      boolean isConfigObfuscated) {
+    return assignFlag(
+        flag, subjectKey, subjectAttributes, isConfigObfuscated, System.currentTimeMillis());
+  }
 
-      // Mark remaining allocations as unevaluated
-      for (int i = allocationPosition; i < allocationsToConsider.size(); i++) {
-        Allocation unevaluatedAllocation = allocationsToConsider.get(i);
-        String unevaluatedKey =
-            isConfigObfuscated
-                ? base64Decode(unevaluatedAllocation.getKey())
-                : unevaluatedAllocation.getKey();
-        builder.addUnevaluatedAllocation(
-            new AllocationDetails(unevaluatedKey, AllocationEvaluationCode.UNEVALUATED, i + 1));
-      }
+  /**
+   * Same as {@link #assignFlag(CompiledFlag, String, Attributes, boolean)}, deciding which
+   * allocations are active as of the given time in epoch millis.
+   */
+  public static @Nullable FlagAssignment assignFlag(
+      CompiledFlag flag,
+      String subjectKey,
+      Attributes subjectAttributes,
+      boolean isConfigObfuscated,
+      long now) {
+    switch (flag.getKind()) {
+      case CONSTANT:
+        // Same for every subject; nothing to hash or look up
+        return flag.getConstantAssignment();
+      case TRAFFIC_ONLY:
+        // No rules read the attributes
+        return assignFlag(
+            flag,
+            NO_ATTRIBUTES,
+            new SubjectShards(subjectKey),
+            new ConditionResults(),
+            isConfigObfuscated,
+            now);
+      default:
+        // For convenience, automatically include subject key as "id" attribute if not provided
+        return assignFlag(
+            flag,
+            MapAttributeView.forSubject(subjectKey, subjectAttributes),
+            new SubjectShards(subjectKey),
+            new ConditionResults(),
+            isConfigObfuscated,
+            now);
+    }
+  }
+
+  /**
+   * Same as {@link #assignFlag(CompiledFlag, String, Attributes, boolean)} for a view of the
+   * subject's attributes, which is expected to already include the implicit "id" attribute (see
+   * {@link MapAttributeView#forSubject(String, Map)}).
+   */
+  public static @Nullable FlagAssignment assignFlag(
+      CompiledFlag flag,
+      String subjectKey,
+      AttributeView subjectAttributes,
+      boolean isConfigObfuscated) {
+    return assignFlag(
+        flag,
+        subjectAttributes,
+        new SubjectShards(subjectKey),
+        new ConditionResults(),
+        isConfigObfuscated,
+        System.currentTimeMillis());
+  }
 
-      break;
+  /**
+   * Same as {@link #assignFlag(CompiledFlag, String, AttributeView, boolean)}, hashing the subject
+   * into shards and evaluating conditions through the given memos, which may be shared by several
+   * evaluations of the subject against the same configuration, as of the given time.
+   */
+  static @Nullable FlagAssignment assignFlag(
+      CompiledFlag flag,
+      AttributeView subjectAttributes,
+      SubjectShards subjectShards,
+      ConditionResults conditionResults,
+      boolean isConfigObfuscated,
+      long now) {
+    if (flag.getKind() == CompiledFlag.Kind.CONSTANT) {
+      // Disabled flags are constant too, without an assignment
+      return flag.getConstantAssignment();
     }
 
-    // If no match was found, return default with appropriate code
-    if (!foundMatch) {
-      builder
-          .doLog(false)
-          .flagEvaluationCode(FlagEvaluationCode.DEFAULT_ALLOCATION_NULL)
-          .flagEvaluationDescription(
-              "No allocations matched. Falling back to \"Default Allocation\", serving NULL");
+    if (isConfigObfuscated && flag.getKind() == CompiledFlag.Kind.RULE_BASED) {
+      // Attributes are looked up by hashed name; index them once for the whole evaluation
+      subjectAttributes = HashedAttributeView.of(subjectAttributes);
     }
 
-    return builder.build();
+    // Allocations outside of their time window are left out up front
+    for (CompiledAllocation allocation : flag.getActiveAllocations(now)) {
+      // Rules and traffic must both pass, so check whichever is estimated to be cheaper first
+      boolean trafficFirst = allocation.isTrafficCheckedFirst();
+      if (!trafficFirst
+          && !matchesRules(allocation, subjectAttributes, conditionResults, isConfigObfuscated)) {
+        continue;
+      }
+
+      CompiledSplit matchedSplit = findSplit(allocation, subjectShards, flag.getTotalShards());
+      if (matchedSplit == null
+          || trafficFirst
+              && !matchesRules(
+                  allocation, subjectAttributes, conditionResults, isConfigObfuscated)) {
+        continue;
+      }
+
+      return new FlagAssignment(
+          allocation.getKey(),
+          flag.getVariation(matchedSplit),
+          matchedSplit.getExtraLogging(),
+          allocation.doLog());
+    }
+
+    return null;
   }
 
-  private static boolean allShardsMatch(
-      Split split, String subjectKey, int totalShards, boolean isObfuscated) {
-    if (split.getShards() == null || split.getShards().isEmpty()) {
-      // Default to matching if no explicit shards
-      return true;
+  private static boolean matchesRules(
+      CompiledAllocation allocation,
+      AttributeView subjectAttributes,
+      ConditionResults conditionResults,
+      boolean isConfigObfuscated) {
+    return !allocation.hasRules()
+        || RuleEvaluator.findMatchingRule(
+                subjectAttributes, allocation.getRules(), isConfigObfuscated, conditionResults)
+            != null;
+  }
+
+  private static @Nullable CompiledSplit findSplit(
+      CompiledAllocation allocation, SubjectShards subjectShards, int totalShards) {
+    for (CompiledSplit split : allocation.getSplits()) {
+      if (allShardsMatch(split, subjectShards, totalShards)) {
+        return split;
+      }
     }
+    return null;
+  }
 
-    for (Shard shard : split.getShards()) {
-      if (!matchesShard(shard, subjectKey, totalShards, isObfuscated)) {
+  private static boolean allShardsMatch(
+      CompiledSplit split, SubjectShards subjectShards, int totalShards) {
+    // Default to matching if no explicit shards
+    for (CompiledShard shard : split.getShards()) {
+      if (!matchesShard(shard, subjectShards, totalShards)) {
         return false;
       }
     }
@@ -316,20 +428,8 @@ public class FlagEvaluator {
   }
 
   private static boolean matchesShard(
-      Shard shard, String subjectKey, int totalShards, boolean isObfuscated) {
-    String salt = shard.getSalt();
-    if (isObfuscated) {
-      salt = base64Decode(salt);
-    }
-    String hashKey = salt + "-" + subjectKey;
-    int assignedShard = getShard(hashKey, totalShards);
-    for (ShardRange range : shard.getRanges()) {
-      if (assignedShard >= range.getStart() && assignedShard < range.getEnd()) {
-        return true;
-      }
-    }
-
-    // If here, the shard was not in any of the shard's ranges
-    return false;
+      CompiledShard shard, SubjectShards subjectShards, int totalShards) {
+    int assignedShard = subjectShards.getShard(shard.getSalt(), totalShards);
+    return shard.contains(assignedShard);
   }
 }
@@ -0,0 +1,87 @@
+package cloud.eppo;
+
+import static cloud.eppo.Utils.getMD5Hex;
+
+import cloud.eppo.api.AttributeView;
+import cloud.eppo.api.EppoValue;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * {@link AttributeView} that can also look attributes up by the MD5 hash of their name, as
+ * obfuscated configurations refer to them.
+ *
+ * <p>The index from hashed name to name is built once, on first use, so that each condition
+ * resolves its attribute with a single map lookup instead of hashing every attribute name. Name
+ * hashes are shared between evaluations through a bounded cache, as subjects tend to use the same
+ * attribute names. The cache is read without locking, and emptied when full rather than keeping
+ * track of which names were used last.
+ */
+final class HashedAttributeView implements AttributeView {
+  private static final int NAME_HASH_CACHE_SIZE = 2048;
+
+  private static final ConcurrentHashMap<String, String> nameHashes = new ConcurrentHashMap<>();
+
+  private final AttributeView attributes;
+  private Map<String, String> namesByHash;
+
+  private HashedAttributeView(AttributeView attributes) {
+    this.attributes = attributes;
+  }
+
+  /** Returns the view itself if it can already be looked up by hashed name, otherwise wraps it. */
+  static HashedAttributeView of(AttributeView attributes) {
+    if (attributes instanceof HashedAttributeView) {
+      return (HashedAttributeView) attributes;
+    }
+    return new HashedAttributeView(attributes);
+  }
+
+  static String hashName(String attributeName) {
+    String hash = nameHashes.get(attributeName);
+    if (hash == null) {
+      hash = getMD5Hex(attributeName);
+      if (nameHashes.size() >= NAME_HASH_CACHE_SIZE) {
+        nameHashes.clear();
+      }
+      nameHashes.put(attributeName, hash);
+    }
+    return hash;
+  }
+
+  /** Returns the value of the attribute whose name hashes to the given MD5 hex, if any. */
+  @Nullable EppoValue getByHashedName(String hashedName) {
+    String attributeName = nameForHash(hashedName);
+    return attributeName != null ? attributes.get(attributeName) : null;
+  }
+
+  /** Returns the name of the attribute whose name hashes to the given MD5 hex, if any. */
+  @Nullable String nameForHash(String hashedName) {
+    if (namesByHash == null) {
+      Map<String, String> index = new HashMap<>();
+      for (Map.Entry<String, EppoValue> entry : attributes.entries()) {
+        String attributeName = entry.getKey();
+        index.putIfAbsent(hashName(attributeName), attributeName);
+      }
+      namesByHash = index;
+    }
+    return namesByHash.get(hashedName);
+  }
+
+  @Override
+  public @Nullable EppoValue get(String attributeName) {
+    return attributes.get(attributeName);
+  }
+
+  @Override
+  public boolean containsKey(String attributeName) {
+    return attributes.containsKey(attributeName);
+  }
+
+  @Override
+  public Iterable<Map.Entry<String, EppoValue>> entries() {
+    return attributes.entries();
+  }
+}
@@ -0,0 +1,197 @@
+package cloud.eppo;
+
+/**
+ * MD5 (RFC 1321) over the UTF-8 encoding of character sequences.
+ *
+ * <p>Input is encoded and hashed as it is appended, so hashing e.g. {@code salt + "-" + subjectKey}
+ * doesn't need to build the concatenated string, its byte array or a digest array. An instance is a
+ * small reusable scratch buffer: it is not thread-safe, and taking a digest resets it for the next
+ * input. {@link #forCurrentThread()} hands out one instance per thread, so that hashing allocates
+ * nothing but the hex string, if one is asked for.
+ */
+final class Md5 {
+  private static final int[] SHIFTS = {7, 12, 17, 22, 5, 9, 14, 20, 4, 11, 16, 23, 6, 10, 15, 21};
+
+  private static final int[] K = {
+    0xd76aa478, 0xe8c7b756, 0x242070db, 0xc1bdceee, 0xf57c0faf, 0x4787c62a, 0xa8304613, 0xfd469501,
+    0x698098d8, 0x8b44f7af, 0xffff5bb1, 0x895cd7be, 0x6b901122, 0xfd987193, 0xa679438e, 0x49b40821,
+    0xf61e2562, 0xc040b340, 0x265e5a51, 0xe9b6c7aa, 0xd62f105d, 0x02441453, 0xd8a1e681, 0xe7d3fbc8,
+    0x21e1cde6, 0xc33707d6, 0xf4d50d87, 0x455a14ed, 0xa9e3e905, 0xfcefa3f8, 0x676f02d9, 0x8d2a4c8a,
+    0xfffa3942, 0x8771f681, 0x6d9d6122, 0xfde5380c, 0xa4beea44, 0x4bdecfa9, 0xf6bb4b60, 0xbebfbc70,
+    0x289b7ec6, 0xeaa127fa, 0xd4ef3085, 0x04881d05, 0xd9d4d039, 0xe6db99e5, 0x1fa27cf8, 0xc4ac5665,
+    0xf4292244, 0x432aff97, 0xab9423a7, 0xfc93a039, 0x655b59c3, 0x8f0ccc92, 0xffeff47d, 0x85845dd1,
+    0x6fa87e4f, 0xfe2ce6e0, 0xa3014314, 0x4e0811a1, 0xf7537e82, 0xbd3af235, 0x2ad7d2bb, 0xeb86d391
+  };
+
+  private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+  // ThreadLocal.withInitial needs Android API 26
+  private static final ThreadLocal<Md5> perThread =
+      new ThreadLocal<Md5>() {
+        @Override
+        protected Md5 initialValue() {
+          return new Md5();
+        }
+      };
+
+  // Current 64-byte block as little-endian words
+  private final int[] block = new int[16];
+  // Hex digits of the digest, copied into the returned string
+  private final char[] hex = new char[32];
+  private int a;
+  private int b;
+  private int c;
+  private int d;
+  private int blockLength;
+  private long length;
+
+  Md5() {
+    reset();
+  }
+
+  /**
+   * Returns the calling thread's instance, reset. Hashing with it must complete before it is asked
+   * for again on the same thread.
+   */
+  static Md5 forCurrentThread() {
+    // Reset in case an earlier hash was abandoned, e.g. on a null input
+    return perThread.get().reset();
+  }
+
+  Md5 reset() {
+    a = 0x67452301;
+    b = 0xefcdab89;
+    c = 0x98badcfe;
+    d = 0x10325476;
+    blockLength = 0;
+    length = 0;
+    return this;
+  }
+
+  /**
+   * Appends the UTF-8 encoding of the input. As with {@link
+   * String#getBytes(java.nio.charset.Charset)}, unpaired surrogates are encoded as {@code '?'}.
+   */
+  Md5 update(CharSequence input) {
+    int inputLength = input.length();
+    for (int i = 0; i < inputLength; i++) {
+      char ch = input.charAt(i);
+      if (ch < 0x80) {
+        updateByte(ch);
+      } else if (ch < 0x800) {
+        updateByte(0xc0 | (ch >>> 6));
+        updateByte(0x80 | (ch & 0x3f));
+      } else if (Character.isSurrogate(ch)) {
+        if (Character.isHighSurrogate(ch)
+            && i + 1 < inputLength
+            && Character.isLowSurrogate(input.charAt(i + 1))) {
+          int codePoint = Character.toCodePoint(ch, input.charAt(++i));
+          updateByte(0xf0 | (codePoint >>> 18));
+          updateByte(0x80 | ((codePoint >>> 12) & 0x3f));
+          updateByte(0x80 | ((codePoint >>> 6) & 0x3f));
+          updateByte(0x80 | (codePoint & 0x3f));
+        } else {
+          updateByte('?');
+        }
+      } else {
+        updateByte(0xe0 | (ch >>> 12));
+        updateByte(0x80 | ((ch >>> 6) & 0x3f));
+        updateByte(0x80 | (ch & 0x3f));
+      }
+    }
+    return this;
+  }
+
+  /** Appends a single ASCII character. */
+  Md5 update(char asciiChar) {
+    updateByte(asciiChar);
+    return this;
+  }
+
+  /** Completes the hash and returns its first four bytes as a big-endian int. */
+  int digestFirstInt() {
+    finish();
+    int result = Integer.reverseBytes(a);
+    reset();
+    return result;
+  }
+
+  /** Completes the hash and returns it as 32 lowercase hexadecimal characters. */
+  String digestHex() {
+    finish();
+    appendHex(hex, 0, a);
+    appendHex(hex, 8, b);
+    appendHex(hex, 16, c);
+    appendHex(hex, 24, d);
+    reset();
+    return new String(hex);
+  }
+
+  private static void appendHex(char[] hex, int offset, int word) {
+    // Words are serialized little-endian
+    for (int i = 0; i < 4; i++) {
+      int value = (word >>> (i * 8)) & 0xff;
+      hex[offset + i * 2] = HEX_DIGITS[value >>> 4];
+      hex[offset + i * 2 + 1] = HEX_DIGITS[value & 0xf];
+    }
+  }
+
+  private void finish() {
+    long bitLength = length << 3;
+    updateByte(0x80);
+    while (blockLength != 56) {
+      updateByte(0);
+    }
+    for (int i = 0; i < 8; i++) {
+      updateByte((int) (bitLength >>> (i * 8)));
+    }
+  }
+
+  private void updateByte(int value) {
+    int word = blockLength >>> 2;
+    int shift = (blockLength & 3) << 3;
+    if (shift == 0) {
+      block[word] = value & 0xff;
+    } else {
+      block[word] |= (value & 0xff) << shift;
+    }
+    length++;
+    if (++blockLength == 64) {
+      processBlock();
+      blockLength = 0;
+    }
+  }
+
+  private void processBlock() {
+    int a = this.a;
+    int b = this.b;
+    int c = this.c;
+    int d = this.d;
+    for (int i = 0; i < 64; i++) {
+      int f;
+      int g;
+      if (i < 16) {
+        f = (b & c) | (~b & d);
+        g = i;
+      } else if (i < 32) {
+        f = (d & b) | (~d & c);
+        g = (5 * i + 1) & 0xf;
+      } else if (i < 48) {
+        f = b ^ c ^ d;
+        g = (3 * i + 5) & 0xf;
+      } else {
+        f = c ^ (b | ~d);
+        g = (7 * i) & 0xf;
+      }
+      int rotated = Integer.rotateLeft(a + f + K[i] + block[g], SHIFTS[((i >>> 4) << 2) | (i & 3)]);
+      a = d;
+      d = c;
+      c = b;
+      b += rotated;
+    }
+    this.a += a;
+    this.b += b;
+    this.c += c;
+    this.d += d;
+  }
+}
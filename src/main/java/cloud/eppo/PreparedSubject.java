@@ -0,0 +1,50 @@
+package cloud.eppo;
+
+import cloud.eppo.api.AttributeView;
+import cloud.eppo.api.Attributes;
+import cloud.eppo.api.MapAttributeView;
+
+/**
+ * A subject's inputs to flag evaluation, prepared once so that evaluating several flags of the same
+ * configuration for the subject shares them: the attribute view (indexed by hashed name for
+ * obfuscated configurations), the shard hashes and the results of targeting conditions. Not
+ * thread-safe.
+ */
+final class PreparedSubject {
+  private final String subjectKey;
+  private final Attributes attributes;
+  private final AttributeView attributeView;
+  private final SubjectShards shards;
+  private final ConditionResults conditionResults;
+
+  PreparedSubject(String subjectKey, Attributes attributes, boolean isConfigObfuscated) {
+    this.subjectKey = subjectKey;
+    this.attributes = attributes;
+    // For convenience, automatically include subject key as "id" attribute if not provided
+    AttributeView attributeView = MapAttributeView.forSubject(subjectKey, attributes);
+    this.attributeView = isConfigObfuscated ? HashedAttributeView.of(attributeView) : attributeView;
+    this.shards = new SubjectShards(subjectKey);
+    this.conditionResults = new ConditionResults();
+  }
+
+  String getSubjectKey() {
+    return subjectKey;
+  }
+
+  /** The attributes as given, for logging. */
+  Attributes getAttributes() {
+    return attributes;
+  }
+
+  AttributeView getAttributeView() {
+    return attributeView;
+  }
+
+  SubjectShards getShards() {
+    return shards;
+  }
+
+  ConditionResults getConditionResults() {
+    return conditionResults;
+  }
+}
@@ -1,25 +1,68 @@
 package cloud.eppo;
 
-import static cloud.eppo.Utils.base64Decode;
 import static cloud.eppo.Utils.getMD5Hex;
 
+import cloud.eppo.api.AttributeView;
 import cloud.eppo.api.Attributes;
 import cloud.eppo.api.EppoValue;
+import cloud.eppo.api.MapAttributeView;
+import cloud.eppo.model.CompiledCondition;
+import cloud.eppo.model.CompiledRule;
 import cloud.eppo.ufc.dto.OperatorType;
-import cloud.eppo.ufc.dto.TargetingCondition;
 import cloud.eppo.ufc.dto.TargetingRule;
 import com.github.zafarkhaja.semver.Version;
 import java.util.Collections;
-import java.util.Map;
 import java.util.Set;
 import java.util.regex.Pattern;
+import org.jetbrains.annotations.Nullable;
 
 public class RuleEvaluator {
+  // Character reads a regular expression match may make (see BoundedCharSequence): a floor that
+  // ordinary patterns never approach, plus an allowance per character of input
+  private static final int MATCH_BASE_READ_BUDGET = 1_000_000;
+  private static final int MATCH_READ_BUDGET_PER_CHAR = 100;
 
   public static TargetingRule findMatchingRule(
       Attributes subjectAttributes, Set<TargetingRule> rules, boolean isObfuscated) {
+    return findMatchingRule(new MapAttributeView(subjectAttributes), rules, isObfuscated);
+  }
+
+  public static TargetingRule findMatchingRule(
+      AttributeView subjectAttributes, Set<TargetingRule> rules, boolean isObfuscated) {
+    if (isObfuscated) {
+      subjectAttributes = HashedAttributeView.of(subjectAttributes);
+    }
     for (TargetingRule rule : rules) {
-      if (allConditionsMatch(subjectAttributes, rule.getConditions(), isObfuscated)) {
+      CompiledRule compiledRule = CompiledRule.compile(rule, isObfuscated);
+      if (allConditionsMatch(subjectAttributes, compiledRule.getConditions(), isObfuscated, null)) {
+        return rule;
+      }
+    }
+    return null;
+  }
+
+  /** Returns the first of the compiled rules whose conditions all match, or null if none do. */
+  public static CompiledRule findMatchingRule(
+      AttributeView subjectAttributes, CompiledRule[] rules, boolean isObfuscated) {
+    return findMatchingRule(subjectAttributes, rules, isObfuscated, null);
+  }
+
+  /**
+   * Same as {@link #findMatchingRule(AttributeView, CompiledRule[], boolean)}, reusing and
+   * recording the outcomes of shared conditions in the given results for the subject.
+   */
+  static CompiledRule findMatchingRule(
+      AttributeView subjectAttributes,
+      CompiledRule[] rules,
+      boolean isObfuscated,
+      @Nullable ConditionResults conditionResults) {
+    if (isObfuscated) {
+      // Index the attributes by hashed name once rather than per condition
+      subjectAttributes = HashedAttributeView.of(subjectAttributes);
+    }
+    for (CompiledRule rule : rules) {
+      if (allConditionsMatch(
+          subjectAttributes, rule.getConditions(), isObfuscated, conditionResults)) {
         return rule;
       }
     }
@@ -27,9 +70,23 @@ public class RuleEvaluator {
   }
 
   private static boolean allConditionsMatch(
-      Attributes subjectAttributes, Set<TargetingCondition> conditions, boolean isObfuscated) {
-    for (TargetingCondition condition : conditions) {
-      if (!evaluateCondition(subjectAttributes, condition, isObfuscated)) {
+      AttributeView subjectAttributes,
+      CompiledCondition[] conditions,
+      boolean isObfuscated,
+      @Nullable ConditionResults conditionResults) {
+    for (CompiledCondition condition : conditions) {
+      boolean matched;
+      if (conditionResults != null && conditionResults.isTracked(condition)) {
+        if (conditionResults.isEvaluated(condition)) {
+          matched = conditionResults.matched(condition);
+        } else {
+          matched = evaluateCondition(subjectAttributes, condition, isObfuscated);
+          conditionResults.record(condition, matched);
+        }
+      } else {
+        matched = evaluateCondition(subjectAttributes, condition, isObfuscated);
+      }
+      if (!matched) {
         return false;
       }
     }
@@ -37,18 +94,12 @@ public class RuleEvaluator {
   }
 
   private static boolean evaluateCondition(
-      Attributes subjectAttributes, TargetingCondition condition, boolean isObfuscated) {
-    EppoValue conditionValue = condition.getValue();
+      AttributeView subjectAttributes, CompiledCondition condition, boolean isObfuscated) {
     String attributeKey = condition.getAttribute();
     EppoValue attributeValue = null;
     if (isObfuscated) {
       // attribute names are hashed
-      for (Map.Entry<String, EppoValue> entry : subjectAttributes.entrySet()) {
-        if (getMD5Hex(entry.getKey()).equals(attributeKey)) {
-          attributeValue = entry.getValue();
-          break;
-        }
-      }
+      attributeValue = ((HashedAttributeView) subjectAttributes).getByHashedName(attributeKey);
     } else {
       attributeValue = subjectAttributes.get(attributeKey);
     }
@@ -57,10 +108,7 @@ public class RuleEvaluator {
     boolean attributeValueIsNull = attributeValue == null || attributeValue.isNull();
     OperatorType operator = condition.getOperator();
     if (operator == OperatorType.IS_NULL) {
-      boolean expectNull =
-          isObfuscated
-              ? getMD5Hex("true").equals(conditionValue.stringValue())
-              : conditionValue.booleanValue();
+      boolean expectNull = condition.expectNull();
       return expectNull && attributeValueIsNull || !expectNull && !attributeValueIsNull;
     } else if (attributeValueIsNull) {
       // Any check other than IS NULL should fail if the attribute value is null
@@ -68,41 +116,21 @@ public class RuleEvaluator {
     }
 
     if (operator.isInequalityComparison()) {
-      Double conditionNumber = null;
-      if (isObfuscated && conditionValue.isString()) {
-        // it may be an encoded number
-        try {
-          conditionNumber = Double.parseDouble(base64Decode(conditionValue.stringValue()));
-        } catch (Exception e) {
-          // not a number
-        }
-      } else if (conditionValue.isNumeric()) {
-        conditionNumber = conditionValue.doubleValue();
-      }
-
+      // The condition's number and semantic version were parsed when the configuration was built
+      Double conditionNumber = condition.getConditionNumber();
       boolean numericComparison = attributeValue.isNumeric() && conditionNumber != null;
 
-      // Android API version 21 does not have access to the java.util.Optional class.
-      // Version.tryParse returns an Optional<Version> would be ideal.
-      // Instead, use Version.parse which throws an exception if the string is not a valid SemVer.
-      // We front-load the parsing here so many evaluation of gte, gt, lte, lt operations
-      // more straight-forward.
+      // Only attribute values that are valid semantic versions are parsed, so that no exception
+      // is thrown and caught per evaluation
+      Version conditionSemVer = condition.getConditionVersion();
       Version valueSemVer = null;
-      Version conditionSemVer = null;
-      try {
-        valueSemVer = Version.parse(attributeValue.stringValue());
-        String conditionSemVerString = condition.getValue().stringValue();
-        if (isObfuscated) {
-          conditionSemVerString = base64Decode(conditionSemVerString);
-        }
-        conditionSemVer = Version.parse(conditionSemVerString);
-      } catch (Exception e) {
-        // no-op
+      if (!numericComparison && conditionSemVer != null) {
+        valueSemVer = SemanticVersions.tryParse(attributeValue.stringValue());
       }
 
       // Performing this check satisfies the compiler that the possibly
       // null value can be safely accessed later.
-      boolean semVerComparison = valueSemVer != null && conditionSemVer != null;
+      boolean semVerComparison = valueSemVer != null;
 
       switch (operator) {
         case GREATER_THAN_OR_EQUAL_TO:
@@ -152,37 +180,47 @@ public class RuleEvaluator {
 
     if (operator.isListComparison()) {
       boolean expectMatch = operator == OperatorType.ONE_OF;
+      Set<String> listValues = condition.getListValues();
       boolean matchFound = false;
-      for (String arrayString : conditionValue.stringArrayValue()) {
+      if (!listValues.isEmpty()) {
+        // The attribute is cast, and hashed if obfuscated, once rather than per list value
         String comparisonString = castAttributeForListComparison(attributeValue);
         if (isObfuscated) {
           // List comparisons use hashes for checking exact match
           comparisonString = getMD5Hex(comparisonString);
         }
-        if (arrayString.equals(comparisonString)) {
-          matchFound = true;
-          break;
-        }
+        matchFound = listValues.contains(comparisonString);
       }
       return expectMatch && matchFound || !expectMatch && !matchFound;
     }
 
     if (operator == OperatorType.MATCHES || operator == OperatorType.NOT_MATCHES) {
-      // Regexes require decoding
-      String patternString = condition.getValue().stringValue();
-      if (isObfuscated) {
-        patternString = base64Decode(patternString);
+      // Patterns are decoded and compiled when the configuration is built
+      Pattern pattern = condition.getPattern();
+      if (pattern == null) {
+        // The pattern is invalid (reported at load), so neither operator can be satisfied
+        return false;
+      }
+      String attributeString = attributeValue.toString();
+      boolean patternFound;
+      try {
+        // Use find() to support partial matching
+        patternFound = pattern.matcher(boundedForMatching(attributeString)).find();
+      } catch (BoundedCharSequence.BudgetExceededException e) {
+        // Runaway backtracking; fail the condition rather than keep the thread busy
+        return false;
       }
-
-      // Use find() to support partial matching
-      Pattern pattern = Pattern.compile(patternString);
-      boolean patternFound = pattern.matcher(attributeValue.toString()).find();
       return (operator == OperatorType.MATCHES) == patternFound;
     }
 
     throw new IllegalStateException("Unexpected rule operator: " + operator);
   }
 
+  private static CharSequence boundedForMatching(String input) {
+    long budget = MATCH_BASE_READ_BUDGET + (long) MATCH_READ_BUDGET_PER_CHAR * input.length();
+    return new BoundedCharSequence(input, (int) Math.min(budget, Integer.MAX_VALUE));
+  }
+
   /**
    * IN and NOT IN checks are not strongly typed, as the user is only entering in strings Thus we
    * need to cast the attribute to a string before hashing and checking
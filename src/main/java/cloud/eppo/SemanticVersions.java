@@ -0,0 +1,131 @@
+package cloud.eppo;
+
+import com.github.zafarkhaja.semver.Version;
+import java.util.concurrent.ConcurrentHashMap;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Parses subject attribute values as semantic versions without using exceptions for control flow.
+ *
+ * <p>{@link Version#parse(String)} throws for anything that isn't a valid version, and {@code
+ * Version.tryParse} returns an {@code java.util.Optional}, which Android API version 21 does not
+ * have. Strings are therefore checked against the SemVer 2.0 grammar before being parsed. Parsed
+ * versions are kept in a bounded cache, as subjects tend to report the same few app versions; it is
+ * read without locking and emptied when full.
+ */
+final class SemanticVersions {
+  private static final int CACHE_SIZE = 256;
+
+  private static final ConcurrentHashMap<String, Version> versions = new ConcurrentHashMap<>();
+
+  private SemanticVersions() {}
+
+  /** Returns the parsed version, or null if the string is not a valid semantic version. */
+  static @Nullable Version tryParse(@Nullable String versionString) {
+    if (versionString == null) {
+      return null;
+    }
+    Version version = versions.get(versionString);
+    if (version != null) {
+      return version;
+    }
+    if (!isValid(versionString)) {
+      return null;
+    }
+    try {
+      version = Version.parse(versionString);
+    } catch (RuntimeException e) {
+      // Grammatically valid but not representable, e.g. a version number that overflows a long
+      return null;
+    }
+    if (versions.size() >= CACHE_SIZE) {
+      versions.clear();
+    }
+    versions.put(versionString, version);
+    return version;
+  }
+
+  /**
+   * Checks the string against the SemVer 2.0 grammar: {@code MAJOR.MINOR.PATCH}, optionally
+   * followed by {@code -PRERELEASE} and {@code +BUILD} dot-separated identifiers.
+   */
+  static boolean isValid(String versionString) {
+    int length = versionString.length();
+    int position = 0;
+    for (int part = 0; part < 3; part++) {
+      if (part > 0) {
+        if (position >= length || versionString.charAt(position) != '.') {
+          return false;
+        }
+        position++;
+      }
+      int end = skipDigits(versionString, position);
+      if (!isNumericIdentifier(versionString, position, end)) {
+        return false;
+      }
+      position = end;
+    }
+    if (position < length && versionString.charAt(position) == '-') {
+      position = skipIdentifiers(versionString, position + 1, true);
+      if (position < 0) {
+        return false;
+      }
+    }
+    if (position < length && versionString.charAt(position) == '+') {
+      position = skipIdentifiers(versionString, position + 1, false);
+      if (position < 0) {
+        return false;
+      }
+    }
+    return position == length;
+  }
+
+  /**
+   * Skips dot-separated alphanumeric identifiers starting at the given position, returning the
+   * position after the last one or -1 if they are malformed. Numeric pre-release identifiers may
+   * not have leading zeros.
+   */
+  private static int skipIdentifiers(String versionString, int position, boolean isPreRelease) {
+    int length = versionString.length();
+    while (true) {
+      int start = position;
+      boolean allDigits = true;
+      while (position < length) {
+        char ch = versionString.charAt(position);
+        if (ch >= '0' && ch <= '9') {
+          position++;
+        } else if (ch >= 'a' && ch <= 'z' || ch >= 'A' && ch <= 'Z' || ch == '-') {
+          allDigits = false;
+          position++;
+        } else {
+          break;
+        }
+      }
+      if (position == start) {
+        return -1;
+      }
+      if (isPreRelease && allDigits && !isNumericIdentifier(versionString, start, position)) {
+        return -1;
+      }
+      if (position < length && versionString.charAt(position) == '.') {
+        position++;
+      } else {
+        return position;
+      }
+    }
+  }
+
+  private static int skipDigits(String versionString, int position) {
+    while (position < versionString.length()
+        && versionString.charAt(position) >= '0'
+        && versionString.charAt(position) <= '9') {
+      position++;
+    }
+    return position;
+  }
+
+  // Non-empty, and no leading zero unless it is just "0"
+  private static boolean isNumericIdentifier(String versionString, int start, int end) {
+    return end > start && (end - start == 1 || versionString.charAt(start) != '0');
+  }
+}
@@ -0,0 +1,63 @@
+package cloud.eppo;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Memoizes a subject's shard hashes by salt, so that each distinct {@code salt + "-" + subjectKey}
+ * is hashed only once however many splits and allocations use the salt, and across flags when the
+ * same instance is reused for several evaluations of the subject.
+ *
+ * <p>The first four bytes of the MD5 are kept, rather than the shard, so that flags with different
+ * shard counts can share the memo. Instances are not thread-safe.
+ */
+final class SubjectShards {
+  // Salts are compared linearly up to this many, then indexed
+  private static final int MAX_LINEAR_SALTS = 8;
+
+  private final String subjectKey;
+  private final String[] salts = new String[MAX_LINEAR_SALTS];
+  private final int[] hashes = new int[MAX_LINEAR_SALTS];
+  private int count;
+  private Map<String, Integer> moreHashes;
+
+  SubjectShards(String subjectKey) {
+    this.subjectKey = subjectKey;
+  }
+
+  String getSubjectKey() {
+    return subjectKey;
+  }
+
+  /** Same as {@code Utils.getShard(salt, subjectKey, totalShards)}. */
+  int getShard(String salt, int totalShards) {
+    return Utils.shardFromHash(hash(salt), totalShards);
+  }
+
+  private int hash(String salt) {
+    for (int i = 0; i < count; i++) {
+      if (salts[i].equals(salt)) {
+        return hashes[i];
+      }
+    }
+    if (moreHashes != null) {
+      Integer hash = moreHashes.get(salt);
+      if (hash != null) {
+        return hash;
+      }
+    }
+
+    int hash = Md5.forCurrentThread().update(salt).update('-').update(subjectKey).digestFirstInt();
+    if (count < MAX_LINEAR_SALTS) {
+      salts[count] = salt;
+      hashes[count] = hash;
+      count++;
+    } else {
+      if (moreHashes == null) {
+        moreHashes = new HashMap<>();
+      }
+      moreHashes.put(salt, hash);
+    }
+    return hash;
+  }
+}
@@ -0,0 +1,229 @@
+package cloud.eppo;
+
+import cloud.eppo.api.AllocationDetails;
+import cloud.eppo.api.AllocationEvaluationCode;
+import cloud.eppo.api.AttributeView;
+import cloud.eppo.api.EvaluationDetails;
+import cloud.eppo.api.FlagEvaluationCode;
+import cloud.eppo.api.MatchedRule;
+import cloud.eppo.api.RuleCondition;
+import cloud.eppo.model.CompiledAllocation;
+import cloud.eppo.model.CompiledCondition;
+import cloud.eppo.model.CompiledFlag;
+import cloud.eppo.model.CompiledRule;
+import cloud.eppo.model.CompiledSplit;
+import cloud.eppo.ufc.dto.Variation;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Evaluation details backed by a compact trace of a flag evaluation: the outcome code of each
+ * allocation and the matched rule and split. The description, matched rule conditions and
+ * allocation details are only built when first requested.
+ *
+ * <p>The subject's attributes belong to the caller and may change after the evaluation, so the
+ * trace keeps none of them: the attribute names of the matched rule's conditions are resolved when
+ * the trace is recorded.
+ */
+final class TracedEvaluationDetails extends EvaluationDetails {
+  private static final AllocationEvaluationCode[] ALLOCATION_CODES =
+      AllocationEvaluationCode.values();
+
+  private final CompiledFlag flag;
+  private final String flagKey;
+  private final String subjectKey;
+  // Attribute name of each condition of the matched rule, deobfuscated if need be
+  private final String[] matchedConditionAttributes;
+  // AllocationEvaluationCode ordinal for each of the flag's allocations
+  private final byte[] allocationCodes;
+  private final int matchedAllocationIndex;
+  private final CompiledRule matchedTargetingRule;
+  private final CompiledSplit matchedSplit;
+  private final Variation variation;
+
+  private volatile String flagEvaluationDescription;
+  private volatile MatchedRule matchedRule;
+  private volatile AllocationTrace allocationTrace;
+
+  TracedEvaluationDetails(
+      String environmentName,
+      Date configFetchedAt,
+      Date configPublishedAt,
+      FlagEvaluationCode flagEvaluationCode,
+      CompiledFlag flag,
+      String flagKey,
+      String subjectKey,
+      AttributeView subjectAttributes,
+      boolean isConfigObfuscated,
+      byte[] allocationCodes,
+      int matchedAllocationIndex,
+      CompiledRule matchedTargetingRule,
+      CompiledSplit matchedSplit,
+      Variation variation) {
+    super(
+        environmentName,
+        configFetchedAt,
+        configPublishedAt,
+        flagEvaluationCode,
+        null,
+        null,
+        null,
+        variation != null ? variation.getKey() : null,
+        variation != null ? variation.getValue() : null,
+        null,
+        null,
+        null,
+        null);
+    this.flag = flag;
+    this.flagKey = flagKey;
+    this.subjectKey = subjectKey;
+    this.matchedConditionAttributes =
+        matchedTargetingRule != null
+            ? conditionAttributes(matchedTargetingRule, subjectAttributes, isConfigObfuscated)
+            : null;
+    this.allocationCodes = allocationCodes;
+    this.matchedAllocationIndex = matchedAllocationIndex;
+    this.matchedTargetingRule = matchedTargetingRule;
+    this.matchedSplit = matchedSplit;
+    this.variation = variation;
+  }
+
+  @Override
+  public String getFlagEvaluationDescription() {
+    String description = flagEvaluationDescription;
+    if (description == null) {
+      description = describe();
+      flagEvaluationDescription = description;
+    }
+    return description;
+  }
+
+  @Override
+  public MatchedRule getMatchedRule() {
+    if (matchedTargetingRule == null) {
+      return null;
+    }
+    MatchedRule rule = matchedRule;
+    if (rule == null) {
+      rule = buildMatchedRule();
+      matchedRule = rule;
+    }
+    return rule;
+  }
+
+  @Override
+  public AllocationDetails getMatchedAllocation() {
+    return allocationTrace().matched;
+  }
+
+  @Override
+  public List<AllocationDetails> getUnmatchedAllocations() {
+    return allocationTrace().unmatched;
+  }
+
+  @Override
+  public List<AllocationDetails> getUnevaluatedAllocations() {
+    return allocationTrace().unevaluated;
+  }
+
+  private String describe() {
+    switch (getFlagEvaluationCode()) {
+      case FLAG_UNRECOGNIZED_OR_DISABLED:
+        return "Unrecognized or disabled flag: " + flagKey;
+      case MATCH:
+        CompiledAllocation allocation = flag.getAllocations()[matchedAllocationIndex];
+        String allocationKey = allocation.getKey();
+        if (matchedTargetingRule != null) {
+          // Check if we need to include traffic assignment details
+          // Include traffic details if there are multiple splits OR multiple shards
+          boolean hasMultipleSplits = allocation.getSplits().length > 1;
+          boolean hasMultipleShards = matchedSplit.getShards().length > 1;
+
+          if (hasMultipleSplits || hasMultipleShards) {
+            return String.format(
+                "Supplied attributes match rules defined in allocation \"%s\" and %s belongs to the range of traffic assigned to \"%s\".",
+                allocationKey, subjectKey, variation.getKey());
+          }
+          return String.format(
+              "Supplied attributes match rules defined in allocation \"%s\".", allocationKey);
+        }
+        return String.format(
+            "%s belongs to the range of traffic assigned to \"%s\" defined in allocation \"%s\".",
+            subjectKey, variation.getKey(), allocationKey);
+      default:
+        return "No allocations matched. Falling back to \"Default Allocation\", serving NULL";
+    }
+  }
+
+  private static String[] conditionAttributes(
+      CompiledRule rule, AttributeView subjectAttributes, boolean isConfigObfuscated) {
+    CompiledCondition[] conditions = rule.getConditions();
+    String[] attributes = new String[conditions.length];
+    for (int i = 0; i < conditions.length; i++) {
+      // Deobfuscate attribute name if config is obfuscated
+      String attribute = conditions[i].getAttribute();
+      if (isConfigObfuscated) {
+        // Find the original attribute name by matching the MD5 hash
+        String attributeName = HashedAttributeView.of(subjectAttributes).nameForHash(attribute);
+        if (attributeName != null) {
+          attribute = attributeName;
+        }
+      }
+      attributes[i] = attribute;
+    }
+    return attributes;
+  }
+
+  private MatchedRule buildMatchedRule() {
+    Set<RuleCondition> conditions = new HashSet<>();
+    CompiledCondition[] ruleConditions = matchedTargetingRule.getConditions();
+    for (int i = 0; i < ruleConditions.length; i++) {
+      CompiledCondition tc = ruleConditions[i];
+      // Condition values are already handled by RuleEvaluator during evaluation
+      // For display purposes, we keep the raw value
+      conditions.add(
+          new RuleCondition(
+              matchedConditionAttributes[i], tc.getOperator().value, tc.getSource().getValue()));
+    }
+    return new MatchedRule(conditions);
+  }
+
+  private AllocationTrace allocationTrace() {
+    AllocationTrace trace = allocationTrace;
+    if (trace == null) {
+      trace = new AllocationTrace(flag.getAllocations(), allocationCodes);
+      allocationTrace = trace;
+    }
+    return trace;
+  }
+
+  private static final class AllocationTrace {
+    private final AllocationDetails matched;
+    private final List<AllocationDetails> unmatched;
+    private final List<AllocationDetails> unevaluated;
+
+    private AllocationTrace(CompiledAllocation[] allocations, byte[] allocationCodes) {
+      AllocationDetails matched = null;
+      List<AllocationDetails> unmatched = new ArrayList<>();
+      List<AllocationDetails> unevaluated = new ArrayList<>();
+      for (int i = 0; i < allocations.length; i++) {
+        AllocationEvaluationCode code = ALLOCATION_CODES[allocationCodes[i]];
+        AllocationDetails details =
+            new AllocationDetails(allocations[i].getKey(), code, allocations[i].getPosition());
+        if (code == AllocationEvaluationCode.MATCH) {
+          matched = details;
+        } else if (code == AllocationEvaluationCode.UNEVALUATED) {
+          unevaluated.add(details);
+        } else {
+          unmatched.add(details);
+        }
+      }
+      this.matched = matched;
+      this.unmatched = unmatched;
+      this.unevaluated = unevaluated;
+    }
+  }
+}
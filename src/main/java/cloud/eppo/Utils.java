@@ -2,8 +2,6 @@ package cloud.eppo;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import java.nio.charset.StandardCharsets;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.Base64;
@@ -15,21 +13,6 @@ import org.slf4j.LoggerFactory;
 public final class Utils {
   private static final ThreadLocal<SimpleDateFormat> UTC_ISO_DATE_FORMAT = buildUtcIsoDateFormat();
   private static final Logger log = LoggerFactory.getLogger(Utils.class);
-  private static final ThreadLocal<MessageDigest> md = buildMd5MessageDigest();
-
-  @SuppressWarnings("AnonymousHasLambdaAlternative")
-  private static ThreadLocal<MessageDigest> buildMd5MessageDigest() {
-    return new ThreadLocal<MessageDigest>() {
-      @Override
-      protected MessageDigest initialValue() {
-        try {
-          return MessageDigest.getInstance("MD5");
-        } catch (NoSuchAlgorithmException e) {
-          throw new RuntimeException("Error initializing MD5 hash", e);
-        }
-      }
-    };
-  }
 
   @SuppressWarnings("AnonymousHasLambdaAlternative")
   private static ThreadLocal<SimpleDateFormat> buildUtcIsoDateFormat() {
@@ -57,19 +40,8 @@ public final class Utils {
    * useful for comparing against other string hashes, such as obfuscated flag names.
    */
   public static String getMD5Hex(String input) {
-    // md5 the input
-    md.get().reset();
-    byte[] md5Bytes = md.get().digest(input.getBytes());
-    // Pre-allocate a StringBuilder with a capacity of 32 characters
-    StringBuilder hexString = new StringBuilder(32);
-
-    for (byte b : md5Bytes) {
-      // Append the two hex digits corresponding to the byte
-      hexString.append(Character.forDigit((b >> 4) & 0xF, 16));
-      hexString.append(Character.forDigit(b & 0xF, 16));
-    }
-
-    return hexString.toString();
+    // md5 the UTF-8 bytes of the input
+    return Md5.forCurrentThread().update(input).digestHex();
   }
 
   /**
@@ -78,17 +50,22 @@ public final class Utils {
    * shuffling bandit actions
    */
   public static int getShard(String input, int maxShardValue) {
-    // md5 the input
-    md.get().reset();
-    byte[] md5Bytes = md.get().digest(input.getBytes());
+    return shardFromHash(Md5.forCurrentThread().update(input).digestFirstInt(), maxShardValue);
+  }
 
-    // Extract the first 4 bytes (8 digits) and convert to a long
-    long value = 0;
-    for (int i = 0; i < 4; i++) {
-      value = (value << 8) | (md5Bytes[i] & 0xFF);
-    }
+  /**
+   * Equivalent to {@code getShard(prefix + "-" + suffix, maxShardValue)} without building the
+   * concatenated input, e.g. for a shard salt and a subject key.
+   */
+  public static int getShard(String prefix, String suffix, int maxShardValue) {
+    return shardFromHash(
+        Md5.forCurrentThread().update(prefix).update('-').update(suffix).digestFirstInt(),
+        maxShardValue);
+  }
 
-    // Modulo into the shard space
+  static int shardFromHash(int firstFourBytes, int maxShardValue) {
+    // The first 4 bytes (8 digits) as an unsigned number, modulo into the shard space
+    long value = firstFourBytes & 0xFFFFFFFFL;
     return (int) (value % maxShardValue);
   }
 
@@ -96,7 +73,14 @@ public final class Utils {
     if (isoDateStringElement == null || isoDateStringElement.isNull()) {
       return null;
     }
-    String isoDateString = isoDateStringElement.asText();
+    return parseUtcISODateString(isoDateStringElement.asText());
+  }
+
+  /** Parses an ISO date, which may be base64-encoded, or returns null if it can't be parsed. */
+  public static Date parseUtcISODateString(String isoDateString) {
+    if (isoDateString == null) {
+      return null;
+    }
     Date result = null;
     try {
       result = UTC_ISO_DATE_FORMAT.get().parse(isoDateString);
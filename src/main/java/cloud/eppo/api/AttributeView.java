@@ -0,0 +1,22 @@
+package cloud.eppo.api;
+
+import java.util.Map;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Read-only view of attributes as seen by the evaluators. Views let evaluation look at the caller's
+ * attributes, with implicit attributes such as the subject's {@code id} overlaid, without copying
+ * them.
+ *
+ * @see MapAttributeView
+ */
+public interface AttributeView {
+
+  /** Returns the value of the attribute, or null if it is not present. */
+  @Nullable EppoValue get(String attributeName);
+
+  boolean containsKey(String attributeName);
+
+  /** All attributes of the view, overlaid ones included. */
+  Iterable<Map.Entry<String, EppoValue>> entries();
+}
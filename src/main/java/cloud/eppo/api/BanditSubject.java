@@ -0,0 +1,29 @@
+package cloud.eppo.api;
+
+/**
+ * A subject to choose a bandit action for, identified by its key, with its attributes and the
+ * actions to choose from.
+ */
+public final class BanditSubject {
+  private final String key;
+  private final DiscriminableAttributes attributes;
+  private final Actions actions;
+
+  public BanditSubject(String key, DiscriminableAttributes attributes, Actions actions) {
+    this.key = key;
+    this.attributes = attributes;
+    this.actions = actions;
+  }
+
+  public String getKey() {
+    return key;
+  }
+
+  public DiscriminableAttributes getAttributes() {
+    return attributes;
+  }
+
+  public Actions getActions() {
+    return actions;
+  }
+}
@@ -0,0 +1,19 @@
+package cloud.eppo.api;
+
+/**
+ * Source of the current time used to decide which allocations are active. Can be replaced, e.g. to
+ * test scheduled launches deterministically. ({@code java.time.Clock} is not available on Android
+ * API version 21.)
+ */
+public interface Clock {
+  Clock SYSTEM =
+      new Clock() {
+        @Override
+        public long currentTimeMillis() {
+          return System.currentTimeMillis();
+        }
+      };
+
+  /** The current time in epoch millis. */
+  long currentTimeMillis();
+}
@@ -2,18 +2,27 @@ package cloud.eppo.api;
 
 import static cloud.eppo.Utils.getMD5Hex;
 
+import cloud.eppo.model.CompiledFlag;
+import cloud.eppo.model.ConditionTable;
 import cloud.eppo.ufc.dto.*;
+import cloud.eppo.ufc.dto.adapters.BanditParametersResponseDeserializer;
 import cloud.eppo.ufc.dto.adapters.EppoModule;
-import com.fasterxml.jackson.databind.JsonNode;
+import cloud.eppo.ufc.dto.adapters.LazyFlagConfigResponseDeserializer;
+import cloud.eppo.ufc.dto.adapters.StreamingFlagConfigResponseDeserializer;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ObjectNode;
 import java.io.*;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
 import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
@@ -61,6 +70,9 @@ public class Configuration {
   private static final Logger log = LoggerFactory.getLogger(Configuration.class);
   private final Map<String, BanditReference> banditReferences;
   private final Map<String, FlagConfig> flags;
+  private final Map<String, CompiledFlag> compiledFlags;
+  // Flags compiled on first use, when the configuration was loaded lazily
+  @Nullable private final ConcurrentHashMap<String, CompiledFlag> lazilyCompiledFlags;
   private final Map<String, BanditParameters> bandits;
   private final boolean isConfigObfuscated;
   private final String environmentName;
@@ -68,6 +80,8 @@ public class Configuration {
   private final Date configPublishedAt;
 
   private final byte[] flagConfigJson;
+  // flagConfigJson with the `format` field grafted in, produced when first serialized
+  private volatile byte[] formattedFlagConfigJson;
 
   private final byte[] banditParamsJson;
 
@@ -82,6 +96,30 @@ public class Configuration {
       Date configPublishedAt,
       byte[] flagConfigJson,
       byte[] banditParamsJson) {
+    this(
+        flags,
+        banditReferences,
+        bandits,
+        isConfigObfuscated,
+        environmentName,
+        configFetchedAt,
+        configPublishedAt,
+        flagConfigJson,
+        banditParamsJson,
+        false);
+  }
+
+  private Configuration(
+      Map<String, FlagConfig> flags,
+      Map<String, BanditReference> banditReferences,
+      Map<String, BanditParameters> bandits,
+      boolean isConfigObfuscated,
+      String environmentName,
+      Date configFetchedAt,
+      Date configPublishedAt,
+      byte[] flagConfigJson,
+      byte[] banditParamsJson,
+      boolean compileLazily) {
     this.flags = flags;
     this.banditReferences = banditReferences;
     this.bandits = bandits;
@@ -89,23 +127,39 @@ public class Configuration {
     this.environmentName = environmentName;
     this.configFetchedAt = configFetchedAt;
     this.configPublishedAt = configPublishedAt;
+    if (compileLazily) {
+      this.compiledFlags = Collections.emptyMap();
+      this.lazilyCompiledFlags = new ConcurrentHashMap<>();
+    } else {
+      this.compiledFlags = compileFlags(flags, isConfigObfuscated);
+      this.lazilyCompiledFlags = null;
+    }
 
-    // Graft the `format` field into the flagConfigJson'
-    if (flagConfigJson != null && flagConfigJson.length != 0) {
+    this.flagConfigJson = flagConfigJson;
+    this.banditParamsJson = banditParamsJson;
+  }
+
+  /**
+   * Compiles every flag into its evaluation plan up front so that assignments don't need to
+   * re-interpret the raw configuration. Flags that fail to compile are left out and compiled again
+   * (surfacing the error) when they are evaluated.
+   */
+  private static Map<String, CompiledFlag> compileFlags(
+      Map<String, FlagConfig> flags, boolean isConfigObfuscated) {
+    if (flags == null || flags.isEmpty()) {
+      return Collections.emptyMap();
+    }
+    Map<String, CompiledFlag> compiled = new HashMap<>(flags.size() * 2);
+    // Conditions repeated across flags are compiled once and evaluated once per subject
+    ConditionTable conditionTable = new ConditionTable(isConfigObfuscated);
+    for (Map.Entry<String, FlagConfig> entry : flags.entrySet()) {
       try {
-        JsonNode jNode = mapper.readTree(flagConfigJson);
-        FlagConfigResponse.Format format =
-            isConfigObfuscated
-                ? FlagConfigResponse.Format.CLIENT
-                : FlagConfigResponse.Format.SERVER;
-        ((ObjectNode) jNode).put("format", format.toString());
-        flagConfigJson = mapper.writeValueAsBytes(jNode);
-      } catch (IOException e) {
-        log.error("Error adding `format` field to FlagConfigResponse JSON");
+        compiled.put(entry.getKey(), CompiledFlag.compile(entry.getValue(), conditionTable));
+      } catch (RuntimeException e) {
+        log.warn("Unable to compile flag {}: {}", entry.getKey(), e.getMessage());
       }
     }
-    this.flagConfigJson = flagConfigJson;
-    this.banditParamsJson = banditParamsJson;
+    return Collections.unmodifiableMap(compiled);
   }
 
   public static Configuration emptyConfig() {
@@ -140,7 +194,7 @@ public class Configuration {
         + ", configPublishedAt="
         + configPublishedAt
         + ", flagConfigJson="
-        + Arrays.toString(flagConfigJson)
+        + Arrays.toString(serializeFlagConfigToBytes())
         + ", banditParamsJson="
         + Arrays.toString(banditParamsJson)
         + '}';
@@ -157,7 +211,7 @@ public class Configuration {
         && Objects.equals(environmentName, that.environmentName)
         && Objects.equals(configFetchedAt, that.configFetchedAt)
         && Objects.equals(configPublishedAt, that.configPublishedAt)
-        && Objects.deepEquals(flagConfigJson, that.flagConfigJson)
+        && Arrays.equals(serializeFlagConfigToBytes(), that.serializeFlagConfigToBytes())
         && Objects.deepEquals(banditParamsJson, that.banditParamsJson);
   }
 
@@ -171,23 +225,50 @@ public class Configuration {
         environmentName,
         configFetchedAt,
         configPublishedAt,
-        Arrays.hashCode(flagConfigJson),
+        Arrays.hashCode(serializeFlagConfigToBytes()),
         Arrays.hashCode(banditParamsJson));
   }
 
   public FlagConfig getFlag(String flagKey) {
-    String flagKeyForLookup = flagKey;
-    if (isConfigObfuscated()) {
-      flagKeyForLookup = getMD5Hex(flagKey);
+    String flagKeyForLookup = flagKeyForLookup(flagKey);
+    return flagKeyForLookup == null ? null : flags.get(flagKeyForLookup);
+  }
+
+  /**
+   * Returns the precompiled evaluation plan for the specified flag if it exists, otherwise returns
+   * null. Configurations loaded lazily compile each flag on first use instead.
+   */
+  public @Nullable CompiledFlag getCompiledFlag(String flagKey) {
+    String flagKeyForLookup = flagKeyForLookup(flagKey);
+    if (flagKeyForLookup == null) {
+      return null;
+    }
+    CompiledFlag compiledFlag = compiledFlags.get(flagKeyForLookup);
+    if (compiledFlag == null && lazilyCompiledFlags != null) {
+      compiledFlag = lazilyCompiledFlags.get(flagKeyForLookup);
+    }
+    if (compiledFlag == null) {
+      FlagConfig flag = flags.get(flagKeyForLookup);
+      if (flag != null) {
+        compiledFlag = CompiledFlag.compile(flag, isConfigObfuscated);
+        if (lazilyCompiledFlags != null) {
+          // Each flag gets its own condition table, so conditions are only shared within a flag
+          CompiledFlag existing = lazilyCompiledFlags.putIfAbsent(flagKeyForLookup, compiledFlag);
+          compiledFlag = existing != null ? existing : compiledFlag;
+        }
+      }
     }
+    return compiledFlag;
+  }
 
+  private @Nullable String flagKeyForLookup(String flagKey) {
     if (flags == null) {
       log.warn("Request for flag {} before flags have been loaded", flagKey);
       return null;
     } else if (flags.isEmpty()) {
       log.warn("Request for flag {} with empty flags", flagKey);
     }
-    return flags.get(flagKeyForLookup);
+    return isConfigObfuscated() ? getMD5Hex(flagKey) : flagKey;
   }
 
   /**
@@ -226,8 +307,63 @@ public class Configuration {
     return isConfigObfuscated;
   }
 
+  /**
+   * Returns the flag configuration JSON with its `format` field set to match {@link
+   * #isConfigObfuscated()}. The bytes are produced on the first call, so configurations that are
+   * never persisted don't pay for it.
+   */
   public byte[] serializeFlagConfigToBytes() {
-    return flagConfigJson;
+    byte[] formatted = formattedFlagConfigJson;
+    if (formatted == null) {
+      // Racing callers produce identical bytes, so there's no need to lock
+      formatted = graftFormat(flagConfigJson, isConfigObfuscated);
+      formattedFlagConfigJson = formatted;
+    }
+    return formatted;
+  }
+
+  /**
+   * Copies the flag configuration JSON token by token, replacing the top-level `format` field (or
+   * appending it if missing), so the configuration is not parsed into a tree a second time.
+   */
+  private static byte[] graftFormat(byte[] flagConfigJson, boolean isConfigObfuscated) {
+    if (flagConfigJson == null || flagConfigJson.length == 0) {
+      return flagConfigJson;
+    }
+    String format =
+        (isConfigObfuscated ? FlagConfigResponse.Format.CLIENT : FlagConfigResponse.Format.SERVER)
+            .toString();
+    ByteArrayOutputStream out = new ByteArrayOutputStream(flagConfigJson.length + 32);
+    try (JsonParser parser = mapper.getFactory().createParser(flagConfigJson);
+        JsonGenerator generator = mapper.getFactory().createGenerator(out)) {
+      if (parser.nextToken() != JsonToken.START_OBJECT) {
+        throw new IOException("Flag configuration JSON is not an object");
+      }
+      generator.writeStartObject();
+      boolean formatWritten = false;
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        String fieldName = parser.currentName();
+        parser.nextToken();
+        if ("format".equals(fieldName)) {
+          parser.skipChildren();
+          if (!formatWritten) {
+            generator.writeStringField("format", format);
+            formatWritten = true;
+          }
+        } else {
+          generator.writeFieldName(fieldName);
+          generator.copyCurrentStructure(parser);
+        }
+      }
+      if (!formatWritten) {
+        generator.writeStringField("format", format);
+      }
+      generator.writeEndObject();
+    } catch (IOException e) {
+      log.error("Error adding `format` field to FlagConfigResponse JSON");
+      return flagConfigJson;
+    }
+    return out.toByteArray();
   }
 
   public byte[] serializeBanditParamsToBytes() {
@@ -258,6 +394,62 @@ public class Configuration {
     return new Builder(flagJson);
   }
 
+  /**
+   * Same as {@link #builder(byte[])}, but deserializes the flags in parallel on the given executor,
+   * which pays off for configurations with thousands of flags.
+   */
+  public static Builder builder(byte[] flagJson, Executor executor) {
+    return builder(flagJson, executor, null);
+  }
+
+  /**
+   * Same as {@link #builder(byte[])}, but only keeps the flags allowed by the filter, if there is
+   * one, and the bandit models they reference.
+   */
+  public static Builder builder(byte[] flagJson, @Nullable FlagFilter flagFilter) {
+    return builder(flagJson, null, flagFilter);
+  }
+
+  /**
+   * Same as {@link #builder(byte[])}, but deserializes the flags in parallel on the executor if
+   * there is one, and only keeps the flags allowed by the filter if there is one.
+   */
+  public static Builder builder(
+      byte[] flagJson, @Nullable Executor executor, @Nullable FlagFilter flagFilter) {
+    StreamingFlagConfigResponseDeserializer deserializer =
+        executor == null && flagFilter == null
+            ? null
+            : new StreamingFlagConfigResponseDeserializer(executor, flagFilter);
+    Builder builder = new Builder(flagJson, Builder.parseFlagResponse(flagJson, deserializer));
+    builder.flagFilter = flagFilter;
+    return builder;
+  }
+
+  /**
+   * Same as {@link #builder(byte[])}, but the flags are only indexed when loaded. Each flag is
+   * deserialized and compiled on first use, then kept for the life of the configuration, so that
+   * services using few of many flags only pay for those. Comparing or printing the configuration
+   * deserializes every flag.
+   */
+  public static Builder lazyBuilder(byte[] flagJson) {
+    return lazyBuilder(flagJson, null);
+  }
+
+  /**
+   * Same as {@link #lazyBuilder(byte[])}, but only indexes the flags allowed by the filter, if
+   * there is one, and only keeps the bandit models they reference.
+   */
+  public static Builder lazyBuilder(byte[] flagJson, @Nullable FlagFilter flagFilter) {
+    Builder builder =
+        new Builder(
+            flagJson,
+            Builder.parseFlagResponse(
+                flagJson, new LazyFlagConfigResponseDeserializer(flagFilter)));
+    builder.compileLazily = true;
+    builder.flagFilter = flagFilter;
+    return builder;
+  }
+
   /**
    * Builder to create the immutable config object.
    *
@@ -273,13 +465,23 @@ public class Configuration {
     private byte[] banditParamsJson;
     private final String environmentName;
     private final Date configPublishedAt;
+    private boolean compileLazily;
+    @Nullable private FlagFilter flagFilter;
 
     private static FlagConfigResponse parseFlagResponse(byte[] flagJson) {
+      return parseFlagResponse(flagJson, null);
+    }
+
+    private static FlagConfigResponse parseFlagResponse(
+        byte[] flagJson, @Nullable StreamingFlagConfigResponseDeserializer deserializer) {
       if (flagJson == null || flagJson.length == 0) {
         log.warn("Null or empty configuration string. Call `Configuration.Empty()` instead");
         return null;
       }
       try {
+        if (deserializer != null) {
+          return deserializer.deserialize(flagJson);
+        }
         return mapper.readValue(flagJson, FlagConfigResponse.class);
       } catch (IOException e) {
         throw new RuntimeException(e);
@@ -343,23 +545,54 @@ public class Configuration {
         bandits = Collections.emptyMap();
       } else {
         bandits = currentConfig.bandits;
+        if (flagFilter != null) {
+          bandits = referencedBandits(bandits);
+        }
         banditParamsJson = currentConfig.banditParamsJson;
       }
       return this;
     }
 
+    private Map<String, BanditParameters> referencedBandits(Map<String, BanditParameters> bandits) {
+      Map<String, BanditParameters> referenced = new HashMap<>();
+      for (Map.Entry<String, BanditParameters> bandit : bandits.entrySet()) {
+        if (banditReferences.containsKey(bandit.getKey())) {
+          referenced.put(bandit.getKey(), bandit.getValue());
+        }
+      }
+      return Collections.unmodifiableMap(referenced);
+    }
+
     public Builder banditParameters(String banditParameterJson) {
       return banditParameters(banditParameterJson.getBytes());
     }
 
     public Builder banditParameters(byte[] banditParameterJson) {
+      return banditParameters(banditParameterJson, null);
+    }
+
+    /**
+     * Same as {@link #banditParameters(byte[])}, but deserializes the bandit models in parallel on
+     * the given executor if there is one.
+     */
+    public Builder banditParameters(byte[] banditParameterJson, @Nullable Executor executor) {
       if (banditParameterJson == null || banditParameterJson.length == 0) {
         log.debug("Bandit parameters are null or empty");
         return this;
       }
       BanditParametersResponse config;
       try {
-        config = mapper.readValue(banditParameterJson, BanditParametersResponse.class);
+        if (flagFilter != null) {
+          // Models not referenced by the kept flags aren't needed
+          config =
+              new BanditParametersResponseDeserializer(executor, banditReferences.keySet())
+                  .deserialize(banditParameterJson);
+        } else if (executor != null) {
+          config =
+              new BanditParametersResponseDeserializer(executor).deserialize(banditParameterJson);
+        } else {
+          config = mapper.readValue(banditParameterJson, BanditParametersResponse.class);
+        }
       } catch (IOException e) {
         log.error("Unable to parse bandit parameters JSON");
         throw new RuntimeException(e);
@@ -388,7 +621,8 @@ public class Configuration {
           configFetchedAt,
           configPublishedAt,
           flagJson,
-          banditParamsJson);
+          banditParamsJson,
+          compileLazily);
     }
   }
 }
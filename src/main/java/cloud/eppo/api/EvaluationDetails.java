@@ -8,6 +8,9 @@ import java.util.List;
  * Contains comprehensive debugging information about a flag evaluation. This includes why a
  * particular variation was assigned, which allocations matched or didn't match, and other metadata
  * useful for understanding flag behavior.
+ *
+ * <p>Details produced by the SDK's evaluator may build the description, matched rule and allocation
+ * details on first access, so always read them through the getters.
  */
 public class EvaluationDetails {
   private final String environmentName;
@@ -141,19 +144,19 @@ public class EvaluationDetails {
    */
   public static Builder builder(EvaluationDetails copyFrom) {
     return new Builder()
-        .environmentName(copyFrom.environmentName)
-        .configFetchedAt(copyFrom.configFetchedAt)
-        .configPublishedAt(copyFrom.configPublishedAt)
-        .flagEvaluationCode(copyFrom.flagEvaluationCode)
-        .flagEvaluationDescription(copyFrom.flagEvaluationDescription)
-        .banditKey(copyFrom.banditKey)
-        .banditAction(copyFrom.banditAction)
-        .variationKey(copyFrom.variationKey)
-        .variationValue(copyFrom.variationValue)
-        .matchedRule(copyFrom.matchedRule)
-        .matchedAllocation(copyFrom.matchedAllocation)
-        .unmatchedAllocations(copyFrom.unmatchedAllocations)
-        .unevaluatedAllocations(copyFrom.unevaluatedAllocations);
+        .environmentName(copyFrom.getEnvironmentName())
+        .configFetchedAt(copyFrom.getConfigFetchedAt())
+        .configPublishedAt(copyFrom.getConfigPublishedAt())
+        .flagEvaluationCode(copyFrom.getFlagEvaluationCode())
+        .flagEvaluationDescription(copyFrom.getFlagEvaluationDescription())
+        .banditKey(copyFrom.getBanditKey())
+        .banditAction(copyFrom.getBanditAction())
+        .variationKey(copyFrom.getVariationKey())
+        .variationValue(copyFrom.getVariationValue())
+        .matchedRule(copyFrom.getMatchedRule())
+        .matchedAllocation(copyFrom.getMatchedAllocation())
+        .unmatchedAllocations(copyFrom.getUnmatchedAllocations())
+        .unevaluatedAllocations(copyFrom.getUnevaluatedAllocations());
   }
 
   /** Builder for constructing EvaluationDetails instances. */
@@ -0,0 +1,66 @@
+package cloud.eppo.api;
+
+import static cloud.eppo.Utils.getMD5Hex;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * The flags a client cares about, by key or key prefix. Configurations loaded with a filter leave
+ * out the other flags, and bandit models only they reference, before building any objects for them.
+ *
+ * <p>Obfuscated configurations hash their flag keys, so only listed keys can be matched in them;
+ * prefixes match none of their flags.
+ */
+public final class FlagFilter {
+  private final Set<String> keys;
+  private final Set<String> hashedKeys;
+  private final String[] prefixes;
+
+  private FlagFilter(Collection<String> keys, Collection<String> prefixes) {
+    this.keys = Collections.unmodifiableSet(new HashSet<>(keys));
+    Set<String> hashedKeys = new HashSet<>(keys.size() * 2);
+    for (String key : keys) {
+      hashedKeys.add(getMD5Hex(key));
+    }
+    this.hashedKeys = hashedKeys;
+    this.prefixes = prefixes.toArray(new String[0]);
+  }
+
+  /** Allows the flags with the given keys and those whose keys start with one of the prefixes. */
+  public static FlagFilter of(Collection<String> flagKeys, Collection<String> flagKeyPrefixes) {
+    return new FlagFilter(flagKeys, flagKeyPrefixes);
+  }
+
+  public static FlagFilter keys(String... flagKeys) {
+    return new FlagFilter(Arrays.asList(flagKeys), Collections.<String>emptyList());
+  }
+
+  public static FlagFilter prefixes(String... flagKeyPrefixes) {
+    return new FlagFilter(Collections.<String>emptySet(), Arrays.asList(flagKeyPrefixes));
+  }
+
+  /** Whether the flag is wanted, given its key as it appears in the configuration. */
+  public boolean allows(String flagKey) {
+    if (flagKey == null) {
+      return false;
+    }
+    if (keys.contains(flagKey) || hashedKeys.contains(flagKey)) {
+      return true;
+    }
+    for (String prefix : prefixes) {
+      if (flagKey.startsWith(prefix)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public String toString() {
+    return "FlagFilter{keys=" + keys + ", prefixes=" + Arrays.toString(prefixes) + '}';
+  }
+}
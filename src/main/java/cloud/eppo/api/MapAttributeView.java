@@ -0,0 +1,87 @@
+package cloud.eppo.api;
+
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * {@link AttributeView} over a map of attributes, optionally overlaying a default attribute that is
+ * only visible when the map doesn't have one of the same name. The map is neither copied nor
+ * modified.
+ */
+public final class MapAttributeView implements AttributeView {
+  private final Map<String, EppoValue> attributes;
+  private final String defaultName;
+  private final EppoValue defaultValue;
+
+  public MapAttributeView(@Nullable Map<String, EppoValue> attributes) {
+    this(attributes, null, null);
+  }
+
+  public MapAttributeView(
+      @Nullable Map<String, EppoValue> attributes,
+      @Nullable String defaultName,
+      @Nullable EppoValue defaultValue) {
+    this.attributes = attributes != null ? attributes : Collections.emptyMap();
+    // Only overlay the default if the attributes don't already provide it
+    boolean overlay = defaultName != null && !this.attributes.containsKey(defaultName);
+    this.defaultName = overlay ? defaultName : null;
+    this.defaultValue = overlay ? defaultValue : null;
+  }
+
+  /**
+   * Returns a view of the subject's attributes in which, for convenience, the subject key is the
+   * "id" attribute if one is not provided.
+   */
+  public static MapAttributeView forSubject(
+      String subjectKey, @Nullable Map<String, EppoValue> subjectAttributes) {
+    return new MapAttributeView(subjectAttributes, "id", EppoValue.valueOf(subjectKey));
+  }
+
+  @Override
+  public @Nullable EppoValue get(String attributeName) {
+    if (defaultName != null && defaultName.equals(attributeName)) {
+      return defaultValue;
+    }
+    return attributes.get(attributeName);
+  }
+
+  @Override
+  public boolean containsKey(String attributeName) {
+    return (defaultName != null && defaultName.equals(attributeName))
+        || attributes.containsKey(attributeName);
+  }
+
+  @Override
+  public Iterable<Map.Entry<String, EppoValue>> entries() {
+    if (defaultName == null) {
+      return attributes.entrySet();
+    }
+    return () ->
+        new Iterator<Map.Entry<String, EppoValue>>() {
+          private final Iterator<Map.Entry<String, EppoValue>> delegate =
+              attributes.entrySet().iterator();
+          private boolean defaultReturned = false;
+
+          @Override
+          public boolean hasNext() {
+            return delegate.hasNext() || !defaultReturned;
+          }
+
+          @Override
+          public Map.Entry<String, EppoValue> next() {
+            if (delegate.hasNext()) {
+              return delegate.next();
+            }
+            if (defaultReturned) {
+              throw new NoSuchElementException();
+            }
+            defaultReturned = true;
+            return new AbstractMap.SimpleImmutableEntry<>(defaultName, defaultValue);
+          }
+        };
+  }
+}
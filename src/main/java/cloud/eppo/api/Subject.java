@@ -0,0 +1,24 @@
+package cloud.eppo.api;
+
+/** A subject to evaluate, identified by its key, with its attributes. */
+public final class Subject {
+  private final String key;
+  private final Attributes attributes;
+
+  public Subject(String key, Attributes attributes) {
+    this.key = key;
+    this.attributes = attributes;
+  }
+
+  public Subject(String key) {
+    this(key, new Attributes());
+  }
+
+  public String getKey() {
+    return key;
+  }
+
+  public Attributes getAttributes() {
+    return attributes;
+  }
+}
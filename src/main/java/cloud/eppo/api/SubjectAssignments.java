@@ -0,0 +1,87 @@
+package cloud.eppo.api;
+
+import cloud.eppo.ufc.dto.VariationType;
+import com.fasterxml.jackson.databind.JsonNode;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * The assignments of one subject to a set of flags, as returned by a batch evaluation. Flags that
+ * assigned nothing (disabled, no matching allocation, unknown or failing flags) are left out, so
+ * the typed getters return the given default for them, as the single-flag getters do.
+ */
+public final class SubjectAssignments {
+  private final String subjectKey;
+  private final Map<String, EppoValue> values;
+  private final Map<String, VariationType> variationTypes;
+
+  public SubjectAssignments(
+      String subjectKey, Map<String, EppoValue> values, Map<String, VariationType> variationTypes) {
+    this.subjectKey = subjectKey;
+    this.values = Collections.unmodifiableMap(values);
+    this.variationTypes = Collections.unmodifiableMap(variationTypes);
+  }
+
+  public String getSubjectKey() {
+    return subjectKey;
+  }
+
+  /** The keys of the flags that assigned a value. */
+  public Set<String> getFlagKeys() {
+    return values.keySet();
+  }
+
+  public boolean hasAssignment(String flagKey) {
+    return values.containsKey(flagKey);
+  }
+
+  /** The assigned value of the flag, or null if it assigned nothing. */
+  public @Nullable EppoValue getValue(String flagKey) {
+    return values.get(flagKey);
+  }
+
+  /** The variation type of the flag, or null if it assigned nothing. */
+  public @Nullable VariationType getVariationType(String flagKey) {
+    return variationTypes.get(flagKey);
+  }
+
+  /** All assigned values by flag key. */
+  public Map<String, EppoValue> asMap() {
+    return values;
+  }
+
+  public boolean getBooleanAssignment(String flagKey, boolean defaultValue) {
+    return getTypedAssignment(flagKey, defaultValue, VariationType.BOOLEAN);
+  }
+
+  public int getIntegerAssignment(String flagKey, int defaultValue) {
+    return getTypedAssignment(flagKey, defaultValue, VariationType.INTEGER);
+  }
+
+  public double getDoubleAssignment(String flagKey, double defaultValue) {
+    return getTypedAssignment(flagKey, defaultValue, VariationType.NUMERIC);
+  }
+
+  public String getStringAssignment(String flagKey, String defaultValue) {
+    return getTypedAssignment(flagKey, defaultValue, VariationType.STRING);
+  }
+
+  public JsonNode getJSONAssignment(String flagKey, JsonNode defaultValue) {
+    return getTypedAssignment(flagKey, defaultValue, VariationType.JSON);
+  }
+
+  private <T> T getTypedAssignment(String flagKey, T defaultValue, VariationType expectedType) {
+    EppoValue value = values.get(flagKey);
+    if (value == null || variationTypes.get(flagKey) != expectedType) {
+      return defaultValue;
+    }
+    return value.unwrap(expectedType);
+  }
+
+  @Override
+  public String toString() {
+    return "SubjectAssignments{" + "subjectKey='" + subjectKey + '\'' + ", values=" + values + '}';
+  }
+}
@@ -1,5 +1,17 @@
 package cloud.eppo.logging;
 
+import java.util.List;
+
 public interface AssignmentLogger {
   void logAssignment(Assignment assignment);
+
+  /**
+   * Logs the assignments made together by a batch evaluation, such as {@code getAllAssignments}.
+   * Override to send them in one go; by default each is passed to {@link #logAssignment}.
+   */
+  default void logAssignments(List<Assignment> assignments) {
+    for (Assignment assignment : assignments) {
+      logAssignment(assignment);
+    }
+  }
 }
@@ -0,0 +1,140 @@
+package cloud.eppo.model;
+
+import static cloud.eppo.Utils.base64Decode;
+
+import cloud.eppo.ufc.dto.Allocation;
+import cloud.eppo.ufc.dto.Split;
+import cloud.eppo.ufc.dto.TargetingRule;
+import java.util.Map;
+
+/** An allocation with compiled rules and splits, and its key deobfuscated. */
+public final class CompiledAllocation {
+  // Estimated cost of hashing the subject into a shard, relative to condition costs
+  private static final int SHARD_COST = 10;
+
+  private final String key;
+  private final int position;
+  private final long startAt;
+  private final long endAt;
+  private final CompiledRule[] rules;
+  private final CompiledSplit[] splits;
+  private final boolean doLog;
+  private final boolean trafficCheckedFirst;
+
+  private CompiledAllocation(
+      String key,
+      int position,
+      long startAt,
+      long endAt,
+      CompiledRule[] rules,
+      CompiledSplit[] splits,
+      boolean doLog) {
+    this.key = key;
+    this.position = position;
+    this.startAt = startAt;
+    this.endAt = endAt;
+    this.rules = rules;
+    this.splits = splits;
+    this.doLog = doLog;
+    this.trafficCheckedFirst = isTrafficCheaperThanRules(rules, splits);
+  }
+
+  public static CompiledAllocation compile(
+      Allocation allocation,
+      int position,
+      Map<String, Integer> variationIndexes,
+      boolean isObfuscated,
+      ConditionTable conditionTable) {
+    String key = allocation.getKey();
+    if (isObfuscated) {
+      key = base64Decode(key);
+    }
+
+    CompiledRule[] rules =
+        new CompiledRule[allocation.getRules() == null ? 0 : allocation.getRules().size()];
+    int i = 0;
+    if (allocation.getRules() != null) {
+      for (TargetingRule rule : allocation.getRules()) {
+        rules[i++] = CompiledRule.compile(rule, isObfuscated, conditionTable);
+      }
+    }
+
+    CompiledSplit[] splits =
+        new CompiledSplit[allocation.getSplits() == null ? 0 : allocation.getSplits().size()];
+    i = 0;
+    if (allocation.getSplits() != null) {
+      for (Split split : allocation.getSplits()) {
+        splits[i++] = CompiledSplit.compile(split, variationIndexes, isObfuscated);
+      }
+    }
+
+    return new CompiledAllocation(
+        key,
+        position,
+        allocation.getStartAt() != null ? allocation.getStartAt().getTime() : Long.MIN_VALUE,
+        allocation.getEndAt() != null ? allocation.getEndAt().getTime() : Long.MAX_VALUE,
+        rules,
+        splits,
+        allocation.doLog());
+  }
+
+  private static boolean isTrafficCheaperThanRules(CompiledRule[] rules, CompiledSplit[] splits) {
+    if (rules.length == 0) {
+      return false;
+    }
+    int rulesCost = 0;
+    for (CompiledRule rule : rules) {
+      rulesCost += rule.getCost();
+    }
+    int trafficCost = 0;
+    for (CompiledSplit split : splits) {
+      trafficCost += split.getShards().length * SHARD_COST;
+    }
+    return trafficCost < rulesCost;
+  }
+
+  /** The deobfuscated allocation key. */
+  public String getKey() {
+    return key;
+  }
+
+  /** One-based position of this allocation within its flag. */
+  public int getPosition() {
+    return position;
+  }
+
+  /** Start of the allocation in epoch millis, or {@link Long#MIN_VALUE} if unbounded. */
+  public long getStartAt() {
+    return startAt;
+  }
+
+  /** End of the allocation in epoch millis, or {@link Long#MAX_VALUE} if unbounded. */
+  public long getEndAt() {
+    return endAt;
+  }
+
+  public boolean hasRules() {
+    return rules.length > 0;
+  }
+
+  public CompiledRule[] getRules() {
+    return rules;
+  }
+
+  public CompiledSplit[] getSplits() {
+    return splits;
+  }
+
+  public boolean doLog() {
+    return doLog;
+  }
+
+  /**
+   * Whether finding the subject's split is estimated to be cheaper than evaluating the rules. Both
+   * must pass for the allocation to match, so when only the assignment is needed (not which checks
+   * failed) they can be evaluated in either order.
+   */
+  public boolean isTrafficCheckedFirst() {
+    return trafficCheckedFirst;
+  }
+}
@@ -0,0 +1,335 @@
+package cloud.eppo.model;
+
+import static cloud.eppo.Utils.base64Decode;
+import static cloud.eppo.Utils.getMD5Hex;
+
+import cloud.eppo.api.EppoValue;
+import cloud.eppo.ufc.dto.OperatorType;
+import cloud.eppo.ufc.dto.TargetingCondition;
+import com.github.zafarkhaja.semver.Version;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.regex.Pattern;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A targeting condition with its comparison operand decoded and pre-parsed for the operator it is
+ * used with, so that evaluation does not need to decode, parse or compile anything per call.
+ */
+public final class CompiledCondition {
+  // Relative cost estimates of evaluating each kind of condition, used to order checks
+  static final int NULL_CHECK_COST = 1;
+  static final int NUMERIC_COMPARISON_COST = 2;
+  static final int LIST_COMPARISON_COST = 3;
+  static final int HASHED_LIST_COMPARISON_COST = 10;
+  static final int SEMVER_COMPARISON_COST = 8;
+  static final int PATTERN_MATCH_COST = 20;
+  static final int RISKY_PATTERN_MATCH_COST = 100;
+  private final TargetingCondition source;
+  private final OperatorType operator;
+  private final String attribute;
+
+  // IS_NULL
+  private final boolean expectNull;
+
+  // GT, GTE, LT, LTE
+  private final Double conditionNumber;
+  private final Version conditionVersion;
+
+  // ONE_OF, NOT_ONE_OF
+  private final Set<String> listValues;
+
+  // MATCHES, NOT_MATCHES
+  private final Pattern pattern;
+  private final String patternError;
+  private final String patternWarning;
+
+  private final int cost;
+
+  // Position in the table of unique conditions it was interned in, if any
+  private final ConditionTable table;
+  private final int index;
+
+  private CompiledCondition(
+      TargetingCondition source,
+      boolean expectNull,
+      Double conditionNumber,
+      Version conditionVersion,
+      Set<String> listValues,
+      Pattern pattern,
+      String patternError,
+      String patternWarning,
+      int cost,
+      ConditionTable table,
+      int index) {
+    this.source = source;
+    this.operator = source.getOperator();
+    this.attribute = source.getAttribute();
+    this.expectNull = expectNull;
+    this.conditionNumber = conditionNumber;
+    this.conditionVersion = conditionVersion;
+    this.listValues = listValues;
+    this.pattern = pattern;
+    this.patternError = patternError;
+    this.patternWarning = patternWarning;
+    this.cost = cost;
+    this.table = table;
+    this.index = index;
+  }
+
+  public static CompiledCondition compile(TargetingCondition condition, boolean isObfuscated) {
+    return compile(condition, isObfuscated, null, -1);
+  }
+
+  static CompiledCondition compile(
+      TargetingCondition condition,
+      boolean isObfuscated,
+      @Nullable ConditionTable table,
+      int index) {
+    OperatorType operator = condition.getOperator();
+    EppoValue conditionValue = condition.getValue();
+
+    boolean expectNull = false;
+    Double conditionNumber = null;
+    Version conditionVersion = null;
+    Set<String> listValues = Collections.emptySet();
+    Pattern pattern = null;
+    String patternError = null;
+    String patternWarning = null;
+    int cost = NULL_CHECK_COST;
+
+    if (operator == OperatorType.IS_NULL) {
+      expectNull =
+          isObfuscated
+              ? getMD5Hex("true").equals(conditionValue.stringValue())
+              : conditionValue.isBoolean() && conditionValue.booleanValue();
+    } else if (operator.isInequalityComparison()) {
+      if (isObfuscated && conditionValue.isString()) {
+        // it may be an encoded number
+        try {
+          conditionNumber = Double.parseDouble(base64Decode(conditionValue.stringValue()));
+        } catch (Exception e) {
+          // not a number
+        }
+      } else if (conditionValue.isNumeric()) {
+        conditionNumber = conditionValue.doubleValue();
+      }
+
+      try {
+        String conditionSemVerString = conditionValue.stringValue();
+        if (isObfuscated) {
+          conditionSemVerString = base64Decode(conditionSemVerString);
+        }
+        conditionVersion = Version.parse(conditionSemVerString);
+      } catch (Exception e) {
+        // not a semantic version
+      }
+      cost = conditionVersion != null ? SEMVER_COMPARISON_COST : NUMERIC_COMPARISON_COST;
+    } else if (operator.isListComparison()) {
+      if (conditionValue.isStringArray()) {
+        // Hashed once here so that matching is a set lookup, however long the list is
+        listValues = Collections.unmodifiableSet(new HashSet<>(conditionValue.stringArrayValue()));
+      }
+      // Obfuscated lists hold hashes, so the attribute value needs hashing too
+      cost = isObfuscated ? HASHED_LIST_COMPARISON_COST : LIST_COMPARISON_COST;
+    } else if (operator == OperatorType.MATCHES || operator == OperatorType.NOT_MATCHES) {
+      // Regexes require decoding
+      String patternString = null;
+      try {
+        patternString = conditionValue.stringValue();
+        if (isObfuscated) {
+          patternString = base64Decode(patternString);
+        }
+        pattern = Pattern.compile(patternString);
+      } catch (RuntimeException e) {
+        // Flagged here, and reported when the flag is compiled, rather than on every evaluation
+        patternError = e.getMessage() != null ? e.getMessage() : e.toString();
+      }
+      if (pattern != null) {
+        try {
+          patternWarning = describeBacktrackingRisk(patternString);
+        } catch (RuntimeException e) {
+          // The check is only advisory; a pattern it can't scan is matched like any other
+        }
+        cost = patternWarning != null ? RISKY_PATTERN_MATCH_COST : PATTERN_MATCH_COST;
+      }
+    }
+
+    return new CompiledCondition(
+        condition,
+        expectNull,
+        conditionNumber,
+        conditionVersion,
+        listValues,
+        pattern,
+        patternError,
+        patternWarning,
+        cost,
+        table,
+        index);
+  }
+
+  /**
+   * Looks for constructs that can make {@link java.util.regex} backtrack excessively: a group
+   * containing a repetition that is itself repeated, such as {@code (a+)+} or {@code (.*a){10}},
+   * and back references. This is a conservative syntactic check; matching is bounded regardless.
+   */
+  static @Nullable String describeBacktrackingRisk(String pattern) {
+    // Whether each open group contains a repetition
+    Deque<Boolean> groups = new ArrayDeque<>();
+    boolean repeats = false;
+    boolean lastGroupRepeats = false;
+    int length = pattern.length();
+    for (int i = 0; i < length; i++) {
+      char ch = pattern.charAt(i);
+      boolean closesGroup = false;
+      switch (ch) {
+        case '\\':
+          if (i + 1 < length) {
+            char escaped = pattern.charAt(++i);
+            if (escaped >= '1' && escaped <= '9' || escaped == 'k') {
+              return "back reference";
+            }
+            if (escaped == 'Q') {
+              int end = pattern.indexOf("\\E", i);
+              i = end < 0 ? length : end + 1;
+            }
+          }
+          // An escaped character, or quoted text, is a literal: it repeats or groups nothing
+          continue;
+        case '[':
+          i = skipCharacterClass(pattern, i);
+          break;
+        case '(':
+          groups.push(repeats);
+          repeats = false;
+          if (i + 1 < length && pattern.charAt(i + 1) == '?') {
+            // Group modifier, not a quantifier
+            i++;
+          }
+          break;
+        case ')':
+          if (!groups.isEmpty()) {
+            lastGroupRepeats = repeats;
+            repeats = groups.pop() || repeats;
+            closesGroup = true;
+          }
+          break;
+        default:
+          break;
+      }
+      if (closesGroup && i + 1 < length && isGroupRepetition(pattern.charAt(i + 1))) {
+        if (lastGroupRepeats) {
+          return "nested repetition";
+        }
+        repeats = true;
+        i++;
+      } else if (!closesGroup && isRepetition(pattern, i)) {
+        repeats = true;
+      }
+    }
+    return null;
+  }
+
+  // A group repeated any number of times multiplies the ways its contents can match
+  private static boolean isGroupRepetition(char ch) {
+    return ch == '*' || ch == '+' || ch == '{';
+  }
+
+  // *, + and open-ended {n,} repeat without bound; escaped characters never reach here
+  private static boolean isRepetition(String pattern, int index) {
+    char ch = pattern.charAt(index);
+    if (ch == '*' || ch == '+') {
+      return true;
+    }
+    if (ch == '{') {
+      int end = pattern.indexOf('}', index);
+      return end > 0 && pattern.charAt(end - 1) == ',';
+    }
+    return false;
+  }
+
+  private static int skipCharacterClass(String pattern, int start) {
+    int depth = 0;
+    for (int i = start; i < pattern.length(); i++) {
+      char ch = pattern.charAt(i);
+      if (ch == '\\') {
+        i++;
+      } else if (ch == '[') {
+        depth++;
+      } else if (ch == ']' && i > start + 1 && --depth == 0) {
+        return i;
+      }
+    }
+    return pattern.length();
+  }
+
+  public TargetingCondition getSource() {
+    return source;
+  }
+
+  public OperatorType getOperator() {
+    return operator;
+  }
+
+  /** The attribute name as it appears in the configuration (hashed if obfuscated). */
+  public String getAttribute() {
+    return attribute;
+  }
+
+  public boolean expectNull() {
+    return expectNull;
+  }
+
+  public Double getConditionNumber() {
+    return conditionNumber;
+  }
+
+  public Version getConditionVersion() {
+    return conditionVersion;
+  }
+
+  /** The values of a list condition (hashed if obfuscated), as a set for membership checks. */
+  public Set<String> getListValues() {
+    return listValues;
+  }
+
+  /** The table of unique conditions this condition belongs to, or null if it wasn't interned. */
+  public @Nullable ConditionTable getTable() {
+    return table;
+  }
+
+  /** Position of this condition in its {@link #getTable() table}, or -1 if it wasn't interned. */
+  public int getIndex() {
+    return index;
+  }
+
+  /** Estimated relative cost of evaluating the condition. */
+  public int getCost() {
+    return cost;
+  }
+
+  /**
+   * The compiled regular expression of a MATCHES or NOT_MATCHES condition, or null if it could not
+   * be decoded or compiled. Patterns are immutable and safe to share between threads.
+   */
+  public @Nullable Pattern getPattern() {
+    return pattern;
+  }
+
+  /**
+   * Why the condition's regular expression may backtrack excessively, or null if nothing suspicious
+   * was found. Such patterns still match, within a bounded amount of work.
+   */
+  public @Nullable String getPatternWarning() {
+    return patternWarning;
+  }
+
+  /** Why the condition's regular expression could not be compiled, or null if it could. */
+  public @Nullable String getPatternError() {
+    return patternError;
+  }
+}
@@ -0,0 +1,349 @@
+package cloud.eppo.model;
+
+import static cloud.eppo.Utils.base64Decode;
+
+import cloud.eppo.FlagAssignment;
+import cloud.eppo.api.EppoValue;
+import cloud.eppo.ufc.dto.Allocation;
+import cloud.eppo.ufc.dto.FlagConfig;
+import cloud.eppo.ufc.dto.Variation;
+import cloud.eppo.ufc.dto.VariationType;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Immutable evaluation plan for a single flag.
+ *
+ * <p>Built once per {@link cloud.eppo.api.Configuration} from the raw {@link FlagConfig}:
+ * obfuscated keys, salts and variations are decoded, condition operands are pre-parsed, regular
+ * expressions are compiled and allocations, splits and variations are stored in arrays so that
+ * evaluation can walk them without re-interpreting the configuration on every call.
+ */
+public final class CompiledFlag {
+  private static final Logger log = LoggerFactory.getLogger(CompiledFlag.class);
+
+  private final FlagConfig source;
+  private final String key;
+  private final boolean enabled;
+  private final int totalShards;
+  private final VariationType variationType;
+  private final Variation[] variations;
+  private final RuntimeException[] variationErrors;
+  private final CompiledAllocation[] allocations;
+  private final Kind kind;
+  private final FlagAssignment constantAssignment;
+  // Allocations active in the window containing the last evaluation time
+  private volatile ActiveAllocations activeAllocations;
+
+  /** How much of the subject a flag's assignment depends on. */
+  public enum Kind {
+    /** Every subject gets the same assignment (or none), e.g. kill switches and full rollouts. */
+    CONSTANT,
+    /** The assignment depends on the subject key through traffic splits, but no rules. */
+    TRAFFIC_ONLY,
+    /** At least one allocation has targeting rules on the subject's attributes. */
+    RULE_BASED
+  }
+
+  private CompiledFlag(
+      FlagConfig source,
+      Variation[] variations,
+      RuntimeException[] variationErrors,
+      CompiledAllocation[] allocations) {
+    this.source = source;
+    this.key = source.getKey();
+    this.enabled = source.isEnabled();
+    this.totalShards = source.getTotalShards();
+    this.variationType = source.getVariationType();
+    this.variations = variations;
+    this.variationErrors = variationErrors;
+    this.allocations = allocations;
+
+    this.kind = classify(enabled, allocations, variationErrors);
+    this.constantAssignment = kind == Kind.CONSTANT ? findConstantAssignment() : null;
+    this.activeAllocations = ActiveAllocations.at(allocations, System.currentTimeMillis());
+  }
+
+  public static CompiledFlag compile(FlagConfig flag, boolean isObfuscated) {
+    return compile(flag, new ConditionTable(isObfuscated));
+  }
+
+  /**
+   * Compiles the flag, sharing equal targeting conditions with the other flags compiled with the
+   * same table.
+   */
+  public static CompiledFlag compile(FlagConfig flag, ConditionTable conditionTable) {
+    boolean isObfuscated = conditionTable.isObfuscated();
+    int variationCount = flag.getVariations() == null ? 0 : flag.getVariations().size();
+    Variation[] variations = new Variation[variationCount];
+    RuntimeException[] variationErrors = new RuntimeException[variationCount];
+    Map<String, Integer> variationIndexes = new HashMap<>();
+    int i = 0;
+    if (flag.getVariations() != null) {
+      for (Map.Entry<String, Variation> entry : flag.getVariations().entrySet()) {
+        variationIndexes.put(entry.getKey(), i);
+        if (isObfuscated) {
+          try {
+            variations[i] = deobfuscateVariation(entry.getValue(), flag.getVariationType());
+          } catch (RuntimeException e) {
+            log.warn("Unable to decode variation {} of flag {}", entry.getKey(), flag.getKey());
+            variationErrors[i] = e;
+          }
+        } else {
+          variations[i] = entry.getValue();
+        }
+        i++;
+      }
+    }
+
+    CompiledAllocation[] allocations =
+        new CompiledAllocation[flag.getAllocations() == null ? 0 : flag.getAllocations().size()];
+    i = 0;
+    if (flag.getAllocations() != null) {
+      for (Allocation allocation : flag.getAllocations()) {
+        allocations[i] =
+            CompiledAllocation.compile(
+                allocation, i + 1, variationIndexes, isObfuscated, conditionTable);
+        i++;
+      }
+    }
+    logPatternProblems(flag.getKey(), allocations);
+    logShardRangeProblems(flag.getKey(), allocations);
+
+    return new CompiledFlag(flag, variations, variationErrors, allocations);
+  }
+
+  private static Kind classify(
+      boolean enabled, CompiledAllocation[] allocations, RuntimeException[] variationErrors) {
+    if (!enabled) {
+      return Kind.CONSTANT;
+    }
+    boolean hasRules = false;
+    for (CompiledAllocation allocation : allocations) {
+      hasRules |= allocation.hasRules();
+    }
+    Kind variableKind = hasRules ? Kind.RULE_BASED : Kind.TRAFFIC_ONLY;
+
+    // Constant if the first allocation that can match always does, and into its first split
+    for (CompiledAllocation allocation : allocations) {
+      if (allocation.hasRules()
+          || allocation.getStartAt() != Long.MIN_VALUE
+          || allocation.getEndAt() != Long.MAX_VALUE) {
+        return variableKind;
+      }
+      CompiledSplit[] splits = allocation.getSplits();
+      if (splits.length == 0) {
+        // Never matches; a later allocation decides
+        continue;
+      }
+      int variationIndex = splits[0].getVariationIndex();
+      boolean variationUsable = variationIndex >= 0 && variationErrors[variationIndex] == null;
+      // Errors are left to surface when the flag is evaluated
+      return splits[0].getShards().length == 0 && variationUsable ? Kind.CONSTANT : variableKind;
+    }
+    // No allocation can match
+    return Kind.CONSTANT;
+  }
+
+  private @Nullable FlagAssignment findConstantAssignment() {
+    if (!enabled) {
+      return null;
+    }
+    for (CompiledAllocation allocation : allocations) {
+      CompiledSplit[] splits = allocation.getSplits();
+      if (splits.length > 0) {
+        return new FlagAssignment(
+            allocation.getKey(),
+            getVariation(splits[0]),
+            splits[0].getExtraLogging(),
+            allocation.doLog());
+      }
+    }
+    return null;
+  }
+
+  private static void logPatternProblems(String flagKey, CompiledAllocation[] allocations) {
+    for (CompiledAllocation allocation : allocations) {
+      for (CompiledRule rule : allocation.getRules()) {
+        for (CompiledCondition condition : rule.getConditions()) {
+          String patternError = condition.getPatternError();
+          if (patternError != null) {
+            log.warn(
+                "Invalid pattern in allocation {} of flag {}; the condition will never match: {}",
+                allocation.getKey(),
+                flagKey,
+                patternError);
+          }
+          String patternWarning = condition.getPatternWarning();
+          if (patternWarning != null) {
+            log.warn(
+                "Pattern in allocation {} of flag {} may backtrack excessively ({}); matching it is"
+                    + " cut short, failing the condition, once it exceeds its step budget",
+                allocation.getKey(),
+                flagKey,
+                patternWarning);
+          }
+        }
+      }
+    }
+  }
+
+  private static void logShardRangeProblems(String flagKey, CompiledAllocation[] allocations) {
+    for (CompiledAllocation allocation : allocations) {
+      for (CompiledSplit split : allocation.getSplits()) {
+        for (CompiledShard shard : split.getShards()) {
+          String rangeProblem = shard.getRangeProblem();
+          if (rangeProblem != null) {
+            log.warn(
+                "Shard {} in allocation {} of flag {} has an {}",
+                shard.getSalt(),
+                allocation.getKey(),
+                flagKey,
+                rangeProblem);
+          }
+        }
+      }
+    }
+  }
+
+  private static Variation deobfuscateVariation(Variation variation, VariationType variationType) {
+    String key = base64Decode(variation.getKey());
+    EppoValue decodedValue = EppoValue.nullValue();
+    if (!variation.getValue().isNull()) {
+      String stringValue = base64Decode(variation.getValue().stringValue());
+      switch (variationType) {
+        case BOOLEAN:
+          decodedValue = EppoValue.valueOf("true".equals(stringValue));
+          break;
+        case INTEGER:
+        case NUMERIC:
+          decodedValue = EppoValue.valueOf(Double.parseDouble(stringValue));
+          break;
+        case STRING:
+        case JSON:
+          decodedValue = EppoValue.valueOf(stringValue);
+          break;
+        default:
+          throw new UnsupportedOperationException(
+              "Unexpected variation type for decoding obfuscated variation: " + variationType);
+      }
+    }
+    return new Variation(key, decodedValue);
+  }
+
+  /** The raw flag configuration this plan was compiled from. */
+  public FlagConfig getSource() {
+    return source;
+  }
+
+  public String getKey() {
+    return key;
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public int getTotalShards() {
+    return totalShards;
+  }
+
+  public VariationType getVariationType() {
+    return variationType;
+  }
+
+  /**
+   * Returns the (deobfuscated) variation for the given split.
+   *
+   * @throws RuntimeException if the split references an unknown or undecodable variation
+   */
+  public Variation getVariation(CompiledSplit split) {
+    int index = split.getVariationIndex();
+    if (index < 0) {
+      throw new RuntimeException("Unknown split variation key: " + split.getVariationKey());
+    }
+    if (variationErrors[index] != null) {
+      throw variationErrors[index];
+    }
+    return variations[index];
+  }
+
+  /**
+   * The allocations active at the given time, in order. The list is kept until the time passes the
+   * next allocation start or end, so expired and not yet started allocations cost nothing.
+   */
+  public CompiledAllocation[] getActiveAllocations(long now) {
+    ActiveAllocations active = activeAllocations;
+    if (now < active.from || now >= active.until) {
+      active = ActiveAllocations.at(allocations, now);
+      activeAllocations = active;
+    }
+    return active.allocations;
+  }
+
+  /** How much of the subject the flag's assignment depends on, as determined when compiled. */
+  public Kind getKind() {
+    return kind;
+  }
+
+  /**
+   * The assignment every subject gets from a {@link Kind#CONSTANT constant} flag, or null if the
+   * flag is not constant or assigns nothing (for instance because it is disabled).
+   */
+  public @Nullable FlagAssignment getConstantAssignment() {
+    return constantAssignment;
+  }
+
+  public CompiledAllocation[] getAllocations() {
+    return allocations;
+  }
+
+  /** Allocations active during a window of time between two allocation starts or ends. */
+  private static final class ActiveAllocations {
+    private final CompiledAllocation[] allocations;
+    // Window is [from, until)
+    private final long from;
+    private final long until;
+
+    private ActiveAllocations(CompiledAllocation[] allocations, long from, long until) {
+      this.allocations = allocations;
+      this.from = from;
+      this.until = until;
+    }
+
+    static ActiveAllocations at(CompiledAllocation[] allocations, long now) {
+      long from = Long.MIN_VALUE;
+      long until = Long.MAX_VALUE;
+      int activeCount = 0;
+      CompiledAllocation[] active = new CompiledAllocation[allocations.length];
+      for (CompiledAllocation allocation : allocations) {
+        // Active from its start until the end of its last millisecond, inclusive
+        long startAt = allocation.getStartAt();
+        long endAt = allocation.getEndAt();
+        if (startAt <= now) {
+          from = Math.max(from, startAt);
+        } else {
+          until = Math.min(until, startAt);
+        }
+        if (endAt != Long.MAX_VALUE) {
+          if (endAt + 1 <= now) {
+            from = Math.max(from, endAt + 1);
+          } else {
+            until = Math.min(until, endAt + 1);
+          }
+        }
+        if (startAt <= now && now <= endAt) {
+          active[activeCount++] = allocation;
+        }
+      }
+      if (activeCount < active.length) {
+        active = Arrays.copyOf(active, activeCount);
+      }
+      return new ActiveAllocations(active, from, until);
+    }
+  }
+}
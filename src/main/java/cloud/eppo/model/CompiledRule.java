@@ -0,0 +1,74 @@
+package cloud.eppo.model;
+
+import cloud.eppo.ufc.dto.TargetingCondition;
+import cloud.eppo.ufc.dto.TargetingRule;
+import java.util.Arrays;
+import java.util.Comparator;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A targeting rule whose conditions have been compiled; all conditions must match. Conditions are
+ * ordered cheapest first, so that a failing rule is usually rejected before its costlier checks.
+ */
+public final class CompiledRule {
+  private static final Comparator<CompiledCondition> BY_COST =
+      new Comparator<CompiledCondition>() {
+        @Override
+        public int compare(CompiledCondition a, CompiledCondition b) {
+          return Integer.compare(a.getCost(), b.getCost());
+        }
+      };
+
+  private final TargetingRule source;
+  private final CompiledCondition[] conditions;
+  private final int cost;
+
+  private CompiledRule(TargetingRule source, CompiledCondition[] conditions) {
+    this.source = source;
+    this.conditions = conditions;
+    int cost = 0;
+    for (CompiledCondition condition : conditions) {
+      cost += condition.getCost();
+    }
+    this.cost = cost;
+  }
+
+  public static CompiledRule compile(TargetingRule rule, boolean isObfuscated) {
+    return compile(rule, isObfuscated, null);
+  }
+
+  /**
+   * Compiles the rule, sharing equal conditions through the given table of unique conditions if
+   * there is one.
+   */
+  public static CompiledRule compile(
+      TargetingRule rule, boolean isObfuscated, @Nullable ConditionTable conditionTable) {
+    CompiledCondition[] conditions =
+        new CompiledCondition[rule.getConditions() == null ? 0 : rule.getConditions().size()];
+    int i = 0;
+    if (rule.getConditions() != null) {
+      for (TargetingCondition condition : rule.getConditions()) {
+        conditions[i++] =
+            conditionTable != null
+                ? conditionTable.intern(condition)
+                : CompiledCondition.compile(condition, isObfuscated);
+      }
+    }
+    // Conditions are all required, so their order doesn't change the outcome
+    Arrays.sort(conditions, BY_COST);
+    return new CompiledRule(rule, conditions);
+  }
+
+  public TargetingRule getSource() {
+    return source;
+  }
+
+  public CompiledCondition[] getConditions() {
+    return conditions;
+  }
+
+  /** Estimated relative cost of evaluating all of the rule's conditions. */
+  public int getCost() {
+    return cost;
+  }
+}
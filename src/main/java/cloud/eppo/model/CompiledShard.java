@@ -0,0 +1,110 @@
+package cloud.eppo.model;
+
+import static cloud.eppo.Utils.base64Decode;
+
+import cloud.eppo.ufc.dto.Shard;
+import java.util.Arrays;
+import java.util.Comparator;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A shard with its salt decoded and its ranges normalized for lookup: empty ranges are dropped and
+ * the rest are sorted and merged into parallel start and end arrays, so that membership is a binary
+ * search however many ranges the shard has.
+ */
+public final class CompiledShard {
+  private static final Comparator<ShardRange> BY_START =
+      new Comparator<ShardRange>() {
+        @Override
+        public int compare(ShardRange a, ShardRange b) {
+          return Integer.compare(a.getStart(), b.getStart());
+        }
+      };
+
+  private final String salt;
+  private final ShardRange[] ranges;
+  // Sorted, disjoint and non-adjacent [start, end) ranges
+  private final int[] starts;
+  private final int[] ends;
+  private final String rangeProblem;
+
+  private CompiledShard(
+      String salt, ShardRange[] ranges, int[] starts, int[] ends, String rangeProblem) {
+    this.salt = salt;
+    this.ranges = ranges;
+    this.starts = starts;
+    this.ends = ends;
+    this.rangeProblem = rangeProblem;
+  }
+
+  public static CompiledShard compile(Shard shard, boolean isObfuscated) {
+    String salt = shard.getSalt();
+    if (isObfuscated) {
+      salt = base64Decode(salt);
+    }
+    ShardRange[] ranges =
+        shard.getRanges() == null
+            ? new ShardRange[0]
+            : shard.getRanges().toArray(new ShardRange[0]);
+
+    ShardRange[] sorted = ranges.clone();
+    Arrays.sort(sorted, BY_START);
+    int[] starts = new int[sorted.length];
+    int[] ends = new int[sorted.length];
+    int count = 0;
+    String rangeProblem = null;
+    for (ShardRange range : sorted) {
+      int start = range.getStart();
+      int end = range.getEnd();
+      if (end <= start) {
+        rangeProblem = "empty range " + range;
+        continue;
+      }
+      if (count > 0 && start <= ends[count - 1]) {
+        if (start < ends[count - 1]) {
+          rangeProblem = "overlapping range " + range;
+        }
+        ends[count - 1] = Math.max(ends[count - 1], end);
+      } else {
+        starts[count] = start;
+        ends[count] = end;
+        count++;
+      }
+    }
+    return new CompiledShard(
+        salt, ranges, Arrays.copyOf(starts, count), Arrays.copyOf(ends, count), rangeProblem);
+  }
+
+  /** The (decoded) salt prepended to the subject key when hashing. */
+  public String getSalt() {
+    return salt;
+  }
+
+  /** The ranges as they appear in the configuration. */
+  public ShardRange[] getRanges() {
+    return ranges;
+  }
+
+  /**
+   * Describes an empty or overlapping range found while normalizing the ranges, or returns null if
+   * there was none. Such ranges don't affect which shards the shard contains.
+   */
+  public @Nullable String getRangeProblem() {
+    return rangeProblem;
+  }
+
+  public boolean contains(int assignedShard) {
+    // Find the last range starting at or before the assigned shard
+    int low = 0;
+    int high = starts.length - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      if (starts[mid] <= assignedShard) {
+        low = mid + 1;
+      } else {
+        high = mid - 1;
+      }
+    }
+    return high >= 0 && assignedShard < ends[high];
+  }
+}
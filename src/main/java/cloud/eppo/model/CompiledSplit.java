@@ -0,0 +1,89 @@
+package cloud.eppo.model;
+
+import static cloud.eppo.Utils.base64Decode;
+
+import cloud.eppo.ufc.dto.Shard;
+import cloud.eppo.ufc.dto.Split;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A split with its variation resolved to a position in the flag's variation array and its extra
+ * logging deobfuscated.
+ */
+public final class CompiledSplit {
+  private final String variationKey;
+  private final int variationIndex;
+  private final CompiledShard[] shards;
+  private final Map<String, String> extraLogging;
+
+  private CompiledSplit(
+      String variationKey,
+      int variationIndex,
+      CompiledShard[] shards,
+      Map<String, String> extraLogging) {
+    this.variationKey = variationKey;
+    this.variationIndex = variationIndex;
+    this.shards = shards;
+    this.extraLogging = extraLogging;
+  }
+
+  public static CompiledSplit compile(
+      Split split, Map<String, Integer> variationIndexes, boolean isObfuscated) {
+    Integer variationIndex = variationIndexes.get(split.getVariationKey());
+
+    CompiledShard[] shards =
+        new CompiledShard[split.getShards() == null ? 0 : split.getShards().size()];
+    int i = 0;
+    if (split.getShards() != null) {
+      for (Shard shard : split.getShards()) {
+        shards[i++] = CompiledShard.compile(shard, isObfuscated);
+      }
+    }
+
+    Map<String, String> extraLogging = split.getExtraLogging();
+    if (isObfuscated && extraLogging != null && !extraLogging.isEmpty()) {
+      extraLogging = deobfuscateExtraLogging(extraLogging);
+    }
+
+    return new CompiledSplit(
+        split.getVariationKey(),
+        variationIndex != null ? variationIndex : -1,
+        shards,
+        extraLogging != null ? Collections.unmodifiableMap(extraLogging) : null);
+  }
+
+  private static Map<String, String> deobfuscateExtraLogging(Map<String, String> extraLogging) {
+    Map<String, String> deobfuscatedExtraLogging = new HashMap<>();
+    for (Map.Entry<String, String> entry : extraLogging.entrySet()) {
+      try {
+        String deobfuscatedKey = base64Decode(entry.getKey());
+        String deobfuscatedValue = base64Decode(entry.getValue());
+        deobfuscatedExtraLogging.put(deobfuscatedKey, deobfuscatedValue);
+      } catch (Exception e) {
+        // If deobfuscation fails, keep the original key-value pair
+        deobfuscatedExtraLogging.put(entry.getKey(), entry.getValue());
+      }
+    }
+    return deobfuscatedExtraLogging;
+  }
+
+  /** The variation key as it appears in the configuration (encoded if obfuscated). */
+  public String getVariationKey() {
+    return variationKey;
+  }
+
+  /** Position of the split's variation in the flag's variations, or -1 if it is unknown. */
+  public int getVariationIndex() {
+    return variationIndex;
+  }
+
+  public CompiledShard[] getShards() {
+    return shards;
+  }
+
+  public Map<String, String> getExtraLogging() {
+    return extraLogging;
+  }
+}
@@ -0,0 +1,41 @@
+package cloud.eppo.model;
+
+import cloud.eppo.ufc.dto.TargetingCondition;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Table of the unique targeting conditions of a configuration. Equal conditions used by several
+ * rules, allocations or flags are compiled once and share a {@link CompiledCondition}, whose
+ * {@linkplain CompiledCondition#getIndex() index} in the table lets evaluation remember each
+ * condition's result for a subject.
+ *
+ * <p>Tables are filled while the configuration is compiled and are not thread-safe until then.
+ */
+public final class ConditionTable {
+  private final Map<TargetingCondition, CompiledCondition> conditions = new HashMap<>();
+  private final boolean isObfuscated;
+
+  public ConditionTable(boolean isObfuscated) {
+    this.isObfuscated = isObfuscated;
+  }
+
+  /** Returns the compiled condition equal to the given one, compiling it if it is new. */
+  public CompiledCondition intern(TargetingCondition condition) {
+    CompiledCondition compiled = conditions.get(condition);
+    if (compiled == null) {
+      compiled = CompiledCondition.compile(condition, isObfuscated, this, conditions.size());
+      conditions.put(condition, compiled);
+    }
+    return compiled;
+  }
+
+  /** The number of unique conditions. */
+  public int size() {
+    return conditions.size();
+  }
+
+  public boolean isObfuscated() {
+    return isObfuscated;
+  }
+}
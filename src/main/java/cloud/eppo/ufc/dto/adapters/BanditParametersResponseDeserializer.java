@@ -2,6 +2,7 @@ package cloud.eppo.ufc.dto.adapters;
 
 import cloud.eppo.ufc.dto.*;
 import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.DeserializationContext;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
@@ -11,6 +12,9 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -19,18 +23,56 @@ public class BanditParametersResponseDeserializer
   private static final Logger log =
       LoggerFactory.getLogger(BanditParametersResponseDeserializer.class);
 
+  @Nullable private final Executor executor;
+  @Nullable private final Set<String> banditKeys;
+
   // Note: public default constructor is required by Jackson
   public BanditParametersResponseDeserializer() {
-    this(null);
+    this((Class<?>) null);
   }
 
   protected BanditParametersResponseDeserializer(Class<?> vc) {
     super(vc);
+    this.executor = null;
+    this.banditKeys = null;
+  }
+
+  /** Deserializes the bandit models in parallel on the given executor. */
+  public BanditParametersResponseDeserializer(Executor executor) {
+    this(executor, null);
+  }
+
+  /**
+   * Deserializes the bandit models in parallel on the executor if there is one, and only the models
+   * with the given keys if they are given; the others are skipped without being deserialized.
+   */
+  public BanditParametersResponseDeserializer(
+      @Nullable Executor executor, @Nullable Set<String> banditKeys) {
+    super((Class<?>) null);
+    this.executor = executor;
+    this.banditKeys = banditKeys;
+  }
+
+  /**
+   * Deserializes the bandit parameters JSON. When running in parallel, the models are handed to the
+   * executor as ranges of these bytes, so that tokenizing them is parallelized too.
+   */
+  public BanditParametersResponse deserialize(byte[] json) throws IOException {
+    try (JsonParser jsonParser = JsonSlice.createParser(json)) {
+      jsonParser.nextToken();
+      if (executor != null || banditKeys != null) {
+        return deserializeByBandit(jsonParser, json, null);
+      }
+      return deserialize(jsonParser, null);
+    }
   }
 
   @Override
   public BanditParametersResponse deserialize(
       JsonParser jsonParser, DeserializationContext deserializationContext) throws IOException {
+    if (executor != null || banditKeys != null) {
+      return deserializeByBandit(jsonParser, null, deserializationContext);
+    }
     JsonNode rootNode = jsonParser.getCodec().readTree(jsonParser);
     if (rootNode == null || !rootNode.isObject()) {
       log.warn("no top-level JSON object");
@@ -48,38 +90,98 @@ public class BanditParametersResponseDeserializer
         .iterator()
         .forEachRemaining(
             banditNode -> {
-              String banditKey = banditNode.get("banditKey").asText();
-              String updatedAtStr = banditNode.get("updatedAt").asText();
-              Instant instant = Instant.parse(updatedAtStr);
-              Date updatedAt = Date.from(instant);
-              String modelName = banditNode.get("modelName").asText();
-              String modelVersion = banditNode.get("modelVersion").asText();
-              JsonNode modelDataNode = banditNode.get("modelData");
-              double gamma = modelDataNode.get("gamma").asDouble();
-              double defaultActionScore = modelDataNode.get("defaultActionScore").asDouble();
-              double actionProbabilityFloor =
-                  modelDataNode.get("actionProbabilityFloor").asDouble();
-              JsonNode coefficientsNode = modelDataNode.get("coefficients");
-              Map<String, BanditCoefficients> coefficients = new HashMap<>();
-              Iterator<Map.Entry<String, JsonNode>> coefficientIterator = coefficientsNode.fields();
-              coefficientIterator.forEachRemaining(
-                  field -> {
-                    BanditCoefficients actionCoefficients =
-                        this.parseActionCoefficientsNode(field.getValue());
-                    coefficients.put(field.getKey(), actionCoefficients);
-                  });
-
-              BanditModelData modelData =
-                  new BanditModelData(
-                      gamma, defaultActionScore, actionProbabilityFloor, coefficients);
-              BanditParameters parameters =
-                  new BanditParameters(banditKey, updatedAt, modelName, modelVersion, modelData);
-              bandits.put(banditKey, parameters);
+              BanditParameters parameters = parseBanditNode(banditNode);
+              bandits.put(parameters.getBanditKey(), parameters);
             });
 
     return new BanditParametersResponse(bandits);
   }
 
+  /**
+   * Reads the bandits object one model at a time, rather than as a whole tree, so that models can
+   * be deserialized in parallel or skipped.
+   */
+  private BanditParametersResponse deserializeByBandit(
+      JsonParser jsonParser,
+      @Nullable byte[] source,
+      @Nullable DeserializationContext deserializationContext)
+      throws IOException {
+    if (jsonParser.currentToken() != JsonToken.START_OBJECT) {
+      log.warn("no top-level JSON object");
+      jsonParser.skipChildren();
+      return new BanditParametersResponse();
+    }
+
+    Map<String, BanditParameters> bandits = null;
+    while (jsonParser.nextToken() == JsonToken.FIELD_NAME) {
+      String fieldName = jsonParser.currentName();
+      JsonToken token = jsonParser.nextToken();
+      if ("bandits".equals(fieldName) && token == JsonToken.START_OBJECT) {
+        bandits = new HashMap<>();
+        if (executor != null) {
+          for (Map.Entry<String, BanditParameters> bandit :
+              ParallelMemberReader.readMembers(
+                  jsonParser,
+                  source,
+                  deserializationContext,
+                  executor,
+                  banditKeys != null ? banditKeys::contains : null,
+                  member -> parseBanditNode(member.readValueAsTree()))) {
+            bandits.put(bandit.getValue().getBanditKey(), bandit.getValue());
+          }
+        } else {
+          while (jsonParser.nextToken() == JsonToken.FIELD_NAME) {
+            String banditKey = jsonParser.currentName();
+            jsonParser.nextToken();
+            if (banditKeys == null || banditKeys.contains(banditKey)) {
+              BanditParameters parameters = parseBanditNode(jsonParser.readValueAsTree());
+              bandits.put(parameters.getBanditKey(), parameters);
+            } else {
+              jsonParser.skipChildren();
+            }
+          }
+        }
+      } else {
+        if ("bandits".equals(fieldName)) {
+          bandits = null;
+        }
+        jsonParser.skipChildren();
+      }
+    }
+
+    if (bandits == null) {
+      log.warn("no root-level bandits object");
+      return new BanditParametersResponse();
+    }
+    return new BanditParametersResponse(bandits);
+  }
+
+  private BanditParameters parseBanditNode(JsonNode banditNode) {
+    String banditKey = banditNode.get("banditKey").asText();
+    String updatedAtStr = banditNode.get("updatedAt").asText();
+    Instant instant = Instant.parse(updatedAtStr);
+    Date updatedAt = Date.from(instant);
+    String modelName = banditNode.get("modelName").asText();
+    String modelVersion = banditNode.get("modelVersion").asText();
+    JsonNode modelDataNode = banditNode.get("modelData");
+    double gamma = modelDataNode.get("gamma").asDouble();
+    double defaultActionScore = modelDataNode.get("defaultActionScore").asDouble();
+    double actionProbabilityFloor = modelDataNode.get("actionProbabilityFloor").asDouble();
+    JsonNode coefficientsNode = modelDataNode.get("coefficients");
+    Map<String, BanditCoefficients> coefficients = new HashMap<>();
+    Iterator<Map.Entry<String, JsonNode>> coefficientIterator = coefficientsNode.fields();
+    coefficientIterator.forEachRemaining(
+        field -> {
+          BanditCoefficients actionCoefficients =
+              this.parseActionCoefficientsNode(field.getValue());
+          coefficients.put(field.getKey(), actionCoefficients);
+        });
+
+    BanditModelData modelData =
+        new BanditModelData(gamma, defaultActionScore, actionProbabilityFloor, coefficients);
+    return new BanditParameters(banditKey, updatedAt, modelName, modelVersion, modelData);
+  }
+
   private BanditCoefficients parseActionCoefficientsNode(JsonNode actionCoefficientsNode) {
     String actionKey = actionCoefficientsNode.get("actionKey").asText();
     Double intercept = actionCoefficientsNode.get("intercept").asDouble();
@@ -5,13 +5,30 @@ import cloud.eppo.ufc.dto.BanditParametersResponse;
 import cloud.eppo.ufc.dto.FlagConfigResponse;
 import com.fasterxml.jackson.databind.module.SimpleModule;
 import java.util.Date;
+import java.util.concurrent.Executor;
 
 public class EppoModule {
   public static SimpleModule eppoModule() {
+    return eppoModule(
+        new StreamingFlagConfigResponseDeserializer(), new BanditParametersResponseDeserializer());
+  }
+
+  /**
+   * Module whose flag configuration and bandit parameters deserializers read flags and bandit
+   * models in parallel on the given executor.
+   */
+  public static SimpleModule eppoModule(Executor executor) {
+    return eppoModule(
+        new StreamingFlagConfigResponseDeserializer(executor),
+        new BanditParametersResponseDeserializer(executor));
+  }
+
+  private static SimpleModule eppoModule(
+      StreamingFlagConfigResponseDeserializer flagConfigResponseDeserializer,
+      BanditParametersResponseDeserializer banditParametersResponseDeserializer) {
     SimpleModule module = new SimpleModule();
-    module.addDeserializer(FlagConfigResponse.class, new FlagConfigResponseDeserializer());
-    module.addDeserializer(
-        BanditParametersResponse.class, new BanditParametersResponseDeserializer());
+    module.addDeserializer(FlagConfigResponse.class, flagConfigResponseDeserializer);
+    module.addDeserializer(BanditParametersResponse.class, banditParametersResponseDeserializer);
     module.addDeserializer(EppoValue.class, new EppoValueDeserializer());
     module.addSerializer(EppoValue.class, new EppoValueSerializer());
     module.addSerializer(Date.class, new DateSerializer());
@@ -2,6 +2,7 @@ package cloud.eppo.ufc.dto.adapters;
 
 import cloud.eppo.api.EppoValue;
 import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.DeserializationContext;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
@@ -27,6 +28,44 @@ public class EppoValueDeserializer extends StdDeserializer<EppoValue> {
     return deserializeNode(jp.getCodec().readTree(jp));
   }
 
+  /**
+   * Same as {@link #deserializeNode(JsonNode)} for the value at the parser's current token, reading
+   * it without building a tree. The parser is left on the value's last token.
+   */
+  public EppoValue deserializeCurrentValue(JsonParser jp) throws IOException {
+    JsonToken token = jp.currentToken();
+    if (token == null || token == JsonToken.VALUE_NULL) {
+      return EppoValue.nullValue();
+    }
+    switch (token) {
+      case START_ARRAY:
+        List<String> stringArray = new ArrayList<>();
+        while (jp.nextToken() != JsonToken.END_ARRAY) {
+          if (jp.currentToken() == JsonToken.VALUE_STRING) {
+            stringArray.add(jp.getText());
+          } else {
+            log.warn(
+                "only Strings are supported for array-valued values; received: {}", jp.getText());
+            jp.skipChildren();
+          }
+        }
+        return EppoValue.valueOf(stringArray);
+      case VALUE_TRUE:
+      case VALUE_FALSE:
+        return EppoValue.valueOf(token == JsonToken.VALUE_TRUE);
+      case VALUE_NUMBER_INT:
+      case VALUE_NUMBER_FLOAT:
+        return EppoValue.valueOf(jp.getDoubleValue());
+      case VALUE_STRING:
+        return EppoValue.valueOf(jp.getText());
+      default:
+        // If here, we don't know what to do; fail to null with a warning
+        log.warn("Unexpected JSON for parsing a value: {}", token);
+        jp.skipChildren();
+        return EppoValue.nullValue();
+    }
+  }
+
   public EppoValue deserializeNode(JsonNode node) {
     EppoValue result;
     if (node == null || node.isNull()) {
@@ -0,0 +1,77 @@
+package cloud.eppo.ufc.dto.adapters;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.ObjectCodec;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import java.io.IOException;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A JSON value set aside to be parsed later, possibly on another thread: a range of the source
+ * bytes when they are known, otherwise the value's buffered tokens. A slice can be opened any
+ * number of times.
+ */
+final class JsonSlice {
+  // Creates the parsers of byte ranges; a plain mapper is enough to read trees
+  private static final ObjectMapper mapper = new ObjectMapper();
+
+  @Nullable private final byte[] source;
+  private final int offset;
+  private final int length;
+  @Nullable private final TokenBuffer buffer;
+  @Nullable private final ObjectCodec codec;
+
+  private JsonSlice(
+      @Nullable byte[] source,
+      int offset,
+      int length,
+      @Nullable TokenBuffer buffer,
+      @Nullable ObjectCodec codec) {
+    this.source = source;
+    this.offset = offset;
+    this.length = length;
+    this.buffer = buffer;
+    this.codec = codec;
+  }
+
+  /** Creates a parser of the source bytes, whose values can then be sliced as byte ranges. */
+  static JsonParser createParser(byte[] source) throws IOException {
+    return mapper.getFactory().createParser(source);
+  }
+
+  /**
+   * Slices the value starting at the parser's current token, leaving the parser on the value's last
+   * token.
+   *
+   * @param source the bytes the parser reads, if known
+   */
+  static JsonSlice of(JsonParser jp, @Nullable byte[] source, @Nullable DeserializationContext ctxt)
+      throws IOException {
+    JsonToken token = jp.currentToken();
+    long start = jp.currentTokenLocation().getByteOffset();
+    if (source != null
+        && start >= 0
+        && (token == JsonToken.START_OBJECT || token == JsonToken.START_ARRAY)) {
+      jp.skipChildren();
+      // The closing bracket is a single byte
+      long end = jp.currentTokenLocation().getByteOffset() + 1;
+      return new JsonSlice(source, (int) start, (int) (end - start), null, null);
+    }
+    TokenBuffer buffer = new TokenBuffer(jp, ctxt);
+    buffer.copyCurrentStructure(jp);
+    return new JsonSlice(null, 0, 0, buffer, jp.getCodec());
+  }
+
+  /** Opens a parser positioned on the value's first token. */
+  JsonParser open() throws IOException {
+    JsonParser jp =
+        buffer != null
+            ? buffer.asParser(codec)
+            : mapper.getFactory().createParser(source, offset, length);
+    jp.nextToken();
+    return jp;
+  }
+}
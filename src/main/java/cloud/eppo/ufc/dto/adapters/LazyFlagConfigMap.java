@@ -0,0 +1,95 @@
+package cloud.eppo.ufc.dto.adapters;
+
+import cloud.eppo.ufc.dto.FlagConfig;
+import com.fasterxml.jackson.core.JsonParser;
+import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Read-only map of flags over an index of each flag's JSON. A flag is deserialized when first
+ * looked up and then kept; iterating over the entries deserializes every flag.
+ */
+final class LazyFlagConfigMap extends AbstractMap<String, FlagConfig> {
+  private final Map<String, JsonSlice> index;
+  private final StreamingFlagConfigResponseDeserializer deserializer;
+  private final ConcurrentHashMap<String, FlagConfig> flags = new ConcurrentHashMap<>();
+
+  LazyFlagConfigMap(
+      Map<String, JsonSlice> index, StreamingFlagConfigResponseDeserializer deserializer) {
+    this.index = index;
+    this.deserializer = deserializer;
+  }
+
+  @Override
+  public FlagConfig get(Object key) {
+    FlagConfig flag = flags.get(key);
+    if (flag != null) {
+      return flag;
+    }
+    JsonSlice slice = index.get(key);
+    if (slice == null) {
+      return null;
+    }
+    try (JsonParser jp = slice.open()) {
+      flag = deserializer.deserializeFlag(jp);
+    } catch (IOException e) {
+      throw new RuntimeException("Unable to deserialize flag " + key, e);
+    }
+    // Racing lookups deserialize equal flags; keep the first so that all callers share it
+    FlagConfig existing = flags.putIfAbsent((String) key, flag);
+    return existing != null ? existing : flag;
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return index.containsKey(key);
+  }
+
+  @Override
+  public int size() {
+    return index.size();
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return index.isEmpty();
+  }
+
+  @Override
+  public Set<String> keySet() {
+    return Collections.unmodifiableSet(index.keySet());
+  }
+
+  @Override
+  public Set<Map.Entry<String, FlagConfig>> entrySet() {
+    return new AbstractSet<Map.Entry<String, FlagConfig>>() {
+      @Override
+      public Iterator<Map.Entry<String, FlagConfig>> iterator() {
+        Iterator<String> keys = index.keySet().iterator();
+        return new Iterator<Map.Entry<String, FlagConfig>>() {
+          @Override
+          public boolean hasNext() {
+            return keys.hasNext();
+          }
+
+          @Override
+          public Map.Entry<String, FlagConfig> next() {
+            String key = keys.next();
+            return new AbstractMap.SimpleImmutableEntry<>(key, get(key));
+          }
+        };
+      }
+
+      @Override
+      public int size() {
+        return index.size();
+      }
+    };
+  }
+}
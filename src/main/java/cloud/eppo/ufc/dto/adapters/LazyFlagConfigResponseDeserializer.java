@@ -0,0 +1,50 @@
+package cloud.eppo.ufc.dto.adapters;
+
+import cloud.eppo.api.FlagFilter;
+import cloud.eppo.ufc.dto.FlagConfig;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Indexes the flags of the configuration instead of deserializing them. Each flag's JSON is set
+ * aside, and the flag is deserialized the first time it is looked up in the response's flags map,
+ * then kept, so that services using a few of many flags only pay for those.
+ *
+ * <p>When deserializing the configuration's bytes with {@link #deserialize(byte[])}, each flag is
+ * indexed as a range of the bytes. Used through an {@code ObjectMapper}, each flag's tokens are
+ * buffered instead.
+ */
+public class LazyFlagConfigResponseDeserializer extends StreamingFlagConfigResponseDeserializer {
+  private static final long serialVersionUID = 1L;
+
+  public LazyFlagConfigResponseDeserializer() {
+    this(null);
+  }
+
+  /** Only indexes the flags allowed by the filter, if there is one. */
+  public LazyFlagConfigResponseDeserializer(@Nullable FlagFilter flagFilter) {
+    super(null, flagFilter);
+  }
+
+  @Override
+  protected Map<String, FlagConfig> deserializeFlags(
+      JsonParser jp, @Nullable byte[] source, @Nullable DeserializationContext ctxt)
+      throws IOException {
+    Map<String, JsonSlice> index = new HashMap<>();
+    while (jp.nextToken() == JsonToken.FIELD_NAME) {
+      String flagKey = jp.currentName();
+      jp.nextToken();
+      if (includesFlag(flagKey)) {
+        index.put(flagKey, JsonSlice.of(jp, source, ctxt));
+      } else {
+        jp.skipChildren();
+      }
+    }
+    return new LazyFlagConfigMap(index, this);
+  }
+}
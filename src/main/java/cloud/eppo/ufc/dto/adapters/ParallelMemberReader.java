@@ -0,0 +1,119 @@
+package cloud.eppo.ufc.dto.adapters;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.function.Predicate;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Reads the members of a JSON object on an executor, so that the members of a very large object
+ * (such as the flags of a configuration) are deserialized in parallel.
+ *
+ * <p>The calling thread only skips over each member, handing it to a task as a {@link JsonSlice}.
+ * When the parser reads known source bytes, tasks then parse their members themselves. Results are
+ * returned in document order, so the outcome is the same as reading the members one after another.
+ */
+final class ParallelMemberReader {
+  // Members per task, so that small members don't cost more to schedule than to read
+  private static final int MEMBERS_PER_TASK = 32;
+
+  /** Reads one member from a parser positioned on the member value's first token. */
+  interface MemberReader<T> {
+    T read(JsonParser member) throws IOException;
+  }
+
+  private ParallelMemberReader() {}
+
+  /**
+   * Reads the members of the object starting at the parser's current token, leaving the parser on
+   * the object's last token.
+   *
+   * @param source the bytes the parser reads, if known
+   * @param memberFilter if given, members whose keys it rejects are skipped
+   */
+  static <T> List<Map.Entry<String, T>> readMembers(
+      JsonParser jp,
+      @Nullable byte[] source,
+      @Nullable DeserializationContext ctxt,
+      Executor executor,
+      @Nullable Predicate<String> memberFilter,
+      MemberReader<T> reader)
+      throws IOException {
+    List<FutureTask<List<Map.Entry<String, T>>>> tasks = new ArrayList<>();
+    List<String> keys = new ArrayList<>(MEMBERS_PER_TASK);
+    List<JsonSlice> slices = new ArrayList<>(MEMBERS_PER_TASK);
+    while (jp.nextToken() == JsonToken.FIELD_NAME) {
+      String key = jp.currentName();
+      jp.nextToken();
+      if (memberFilter != null && !memberFilter.test(key)) {
+        jp.skipChildren();
+        continue;
+      }
+      keys.add(key);
+      slices.add(JsonSlice.of(jp, source, ctxt));
+      if (keys.size() == MEMBERS_PER_TASK) {
+        tasks.add(submit(keys, slices, executor, reader));
+        keys = new ArrayList<>(MEMBERS_PER_TASK);
+        slices = new ArrayList<>(MEMBERS_PER_TASK);
+      }
+    }
+    if (!keys.isEmpty()) {
+      tasks.add(submit(keys, slices, executor, reader));
+    }
+
+    List<Map.Entry<String, T>> members = new ArrayList<>();
+    for (FutureTask<List<Map.Entry<String, T>>> task : tasks) {
+      members.addAll(await(task));
+    }
+    return members;
+  }
+
+  private static <T> FutureTask<List<Map.Entry<String, T>>> submit(
+      List<String> keys, List<JsonSlice> slices, Executor executor, MemberReader<T> reader) {
+    FutureTask<List<Map.Entry<String, T>>> task =
+        new FutureTask<>(
+            () -> {
+              List<Map.Entry<String, T>> members = new ArrayList<>(keys.size());
+              for (int i = 0; i < keys.size(); i++) {
+                try (JsonParser member = slices.get(i).open()) {
+                  members.add(
+                      new AbstractMap.SimpleImmutableEntry<>(keys.get(i), reader.read(member)));
+                }
+              }
+              return members;
+            });
+    executor.execute(task);
+    return task;
+  }
+
+  private static <T> T await(FutureTask<T> task) throws IOException {
+    try {
+      return task.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while deserializing in parallel");
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      }
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IOException(cause);
+    }
+  }
+}
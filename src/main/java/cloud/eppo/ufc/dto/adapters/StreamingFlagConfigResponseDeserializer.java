@@ -0,0 +1,570 @@
+package cloud.eppo.ufc.dto.adapters;
+
+import static cloud.eppo.Utils.parseUtcISODateString;
+
+import cloud.eppo.api.EppoValue;
+import cloud.eppo.api.FlagFilter;
+import cloud.eppo.model.ShardRange;
+import cloud.eppo.ufc.dto.*;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Builds the {@link FlagConfigResponse} directly from the parser's tokens, producing the same
+ * result as {@link FlagConfigResponseDeserializer} without first reading the whole payload into a
+ * tree of {@code JsonNode}s. Peak memory while parsing is then little more than the resulting
+ * flags.
+ *
+ * <p>Given an executor, the flags are deserialized in parallel on it, which shortens the time to
+ * load configurations with thousands of flags. The result is the same either way. Given a {@link
+ * FlagFilter}, the flags it doesn't allow are skipped without being deserialized.
+ *
+ * <p>Hand-rolled, like the tree-based deserializer, so that we don't rely on annotations and method
+ * names, which can be unreliable when ProGuard minification is in-use.
+ */
+public class StreamingFlagConfigResponseDeserializer extends StdDeserializer<FlagConfigResponse> {
+  private static final long serialVersionUID = 1L;
+  private static final Logger log =
+      LoggerFactory.getLogger(StreamingFlagConfigResponseDeserializer.class);
+  private final EppoValueDeserializer eppoValueDeserializer = new EppoValueDeserializer();
+  @Nullable private final Executor executor;
+  @Nullable private final FlagFilter flagFilter;
+
+  protected StreamingFlagConfigResponseDeserializer(Class<?> vc) {
+    super(vc);
+    this.executor = null;
+    this.flagFilter = null;
+  }
+
+  public StreamingFlagConfigResponseDeserializer() {
+    this((Class<?>) null);
+  }
+
+  /** Deserializes the flags in parallel on the given executor. */
+  public StreamingFlagConfigResponseDeserializer(Executor executor) {
+    this(executor, null);
+  }
+
+  /**
+   * Deserializes the flags in parallel on the executor if there is one, and only those allowed by
+   * the filter if there is one. Bandit references without allowed flags are left out too.
+   */
+  public StreamingFlagConfigResponseDeserializer(
+      @Nullable Executor executor, @Nullable FlagFilter flagFilter) {
+    super((Class<?>) null);
+    this.executor = executor;
+    this.flagFilter = flagFilter;
+  }
+
+  /**
+   * Deserializes the configuration JSON. Flags set aside to be read later, such as when running in
+   * parallel, are then kept as ranges of these bytes rather than as buffered tokens.
+   */
+  public FlagConfigResponse deserialize(byte[] json) throws IOException {
+    try (JsonParser jp = JsonSlice.createParser(json)) {
+      jp.nextToken();
+      return deserialize(jp, json, null);
+    }
+  }
+
+  @Override
+  public FlagConfigResponse deserialize(JsonParser jp, DeserializationContext ctxt)
+      throws IOException {
+    return deserialize(jp, null, ctxt);
+  }
+
+  private FlagConfigResponse deserialize(
+      JsonParser jp, @Nullable byte[] source, @Nullable DeserializationContext ctxt)
+      throws IOException {
+    if (jp.currentToken() != JsonToken.START_OBJECT) {
+      log.warn("no top-level JSON object");
+      jp.skipChildren();
+      return new FlagConfigResponse();
+    }
+
+    Map<String, FlagConfig> flags = null;
+    Map<String, BanditReference> banditReferences = new ConcurrentHashMap<>();
+    String format = null;
+    String environmentName = null;
+    String createdAt = null;
+    while (jp.nextToken() == JsonToken.FIELD_NAME) {
+      String fieldName = jp.currentName();
+      JsonToken token = jp.nextToken();
+      switch (fieldName) {
+        case "flags":
+          if (token == JsonToken.START_OBJECT) {
+            flags = deserializeFlags(jp, source, ctxt);
+          } else {
+            flags = null;
+            jp.skipChildren();
+          }
+          break;
+        case "format":
+          format = text(jp);
+          break;
+        case "environment":
+          environmentName = null;
+          if (token == JsonToken.START_OBJECT) {
+            while (jp.nextToken() == JsonToken.FIELD_NAME) {
+              String environmentField = jp.currentName();
+              jp.nextToken();
+              if ("name".equals(environmentField)) {
+                environmentName = text(jp);
+              } else {
+                jp.skipChildren();
+              }
+            }
+          } else {
+            jp.skipChildren();
+          }
+          break;
+        case "createdAt":
+          createdAt = token == JsonToken.VALUE_NULL ? null : text(jp);
+          break;
+        case "banditReferences":
+          banditReferences.clear();
+          if (token == JsonToken.START_OBJECT) {
+            while (jp.nextToken() == JsonToken.FIELD_NAME) {
+              String banditKey = jp.currentName();
+              jp.nextToken();
+              BanditReference banditReference = deserializeBanditReference(jp);
+              if (flagFilter == null || includesAnyFlag(banditReference)) {
+                banditReferences.put(banditKey, banditReference);
+              }
+            }
+          } else {
+            log.warn("root-level banditReferences property is present but not a JSON object");
+            jp.skipChildren();
+          }
+          break;
+        default:
+          jp.skipChildren();
+      }
+    }
+
+    if (flags == null) {
+      log.warn("no root-level flags object");
+      return new FlagConfigResponse();
+    }
+
+    // Default is to assume that the config is not obfuscated.
+    FlagConfigResponse.Format dataFormat =
+        format == null
+            ? FlagConfigResponse.Format.SERVER
+            : FlagConfigResponse.Format.valueOf(format);
+
+    return new FlagConfigResponse(
+        flags, banditReferences, dataFormat, environmentName, parseUtcISODateString(createdAt));
+  }
+
+  /**
+   * Reads the flags object starting at the current token into a map keyed by flag key, leaving the
+   * parser on the object's last token.
+   *
+   * @param source the bytes the parser reads, if known
+   */
+  protected Map<String, FlagConfig> deserializeFlags(
+      JsonParser jp, @Nullable byte[] source, @Nullable DeserializationContext ctxt)
+      throws IOException {
+    Map<String, FlagConfig> flags = new ConcurrentHashMap<>();
+    if (executor != null) {
+      for (Map.Entry<String, FlagConfig> flag :
+          ParallelMemberReader.readMembers(
+              jp,
+              source,
+              ctxt,
+              executor,
+              flagFilter != null ? flagFilter::allows : null,
+              this::deserializeFlag)) {
+        flags.put(flag.getKey(), flag.getValue());
+      }
+    } else {
+      while (jp.nextToken() == JsonToken.FIELD_NAME) {
+        String flagKey = jp.currentName();
+        jp.nextToken();
+        if (includesFlag(flagKey)) {
+          flags.put(flagKey, deserializeFlag(jp));
+        } else {
+          jp.skipChildren();
+        }
+      }
+    }
+    return flags;
+  }
+
+  /** Whether the flag with the given key (as it appears in the configuration) is wanted. */
+  protected boolean includesFlag(String flagKey) {
+    return flagFilter == null || flagFilter.allows(flagKey);
+  }
+
+  private boolean includesAnyFlag(BanditReference banditReference) {
+    if (banditReference.getFlagVariations() == null) {
+      return false;
+    }
+    for (BanditFlagVariation flagVariation : banditReference.getFlagVariations()) {
+      if (includesFlag(flagVariation.getFlagKey())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /** Reads the flag whose object starts at the current token. */
+  protected FlagConfig deserializeFlag(JsonParser jp) throws IOException {
+    String key = null;
+    boolean enabled = false;
+    int totalShards = 0;
+    VariationType variationType = null;
+    Map<String, Variation> variations = new HashMap<>();
+    List<Allocation> allocations = new ArrayList<>();
+    if (jp.currentToken() != JsonToken.START_OBJECT) {
+      jp.skipChildren();
+      return new FlagConfig(key, enabled, totalShards, variationType, variations, allocations);
+    }
+    while (jp.nextToken() == JsonToken.FIELD_NAME) {
+      String fieldName = jp.currentName();
+      jp.nextToken();
+      switch (fieldName) {
+        case "key":
+          key = text(jp);
+          break;
+        case "enabled":
+          enabled = bool(jp);
+          break;
+        case "totalShards":
+          totalShards = integer(jp);
+          break;
+        case "variationType":
+          variationType = VariationType.fromString(text(jp));
+          break;
+        case "variations":
+          variations = deserializeVariations(jp);
+          break;
+        case "allocations":
+          allocations = deserializeAllocations(jp);
+          break;
+        default:
+          jp.skipChildren();
+      }
+    }
+    return new FlagConfig(key, enabled, totalShards, variationType, variations, allocations);
+  }
+
+  private Map<String, Variation> deserializeVariations(JsonParser jp) throws IOException {
+    Map<String, Variation> variations = new HashMap<>();
+    if (jp.currentToken() != JsonToken.START_OBJECT) {
+      jp.skipChildren();
+      return variations;
+    }
+    while (jp.nextToken() == JsonToken.FIELD_NAME) {
+      String variationKey = jp.currentName();
+      if (jp.nextToken() != JsonToken.START_OBJECT) {
+        jp.skipChildren();
+        continue;
+      }
+      String key = null;
+      EppoValue value = EppoValue.nullValue();
+      while (jp.nextToken() == JsonToken.FIELD_NAME) {
+        String fieldName = jp.currentName();
+        jp.nextToken();
+        if ("key".equals(fieldName)) {
+          key = text(jp);
+        } else if ("value".equals(fieldName)) {
+          value = eppoValueDeserializer.deserializeCurrentValue(jp);
+        } else {
+          jp.skipChildren();
+        }
+      }
+      variations.put(variationKey, new Variation(key, value));
+    }
+    return variations;
+  }
+
+  private List<Allocation> deserializeAllocations(JsonParser jp) throws IOException {
+    List<Allocation> allocations = new ArrayList<>();
+    if (jp.currentToken() != JsonToken.START_ARRAY) {
+      jp.skipChildren();
+      return allocations;
+    }
+    while (nextObjectInArray(jp)) {
+      String key = null;
+      Set<TargetingRule> rules = new HashSet<>();
+      Date startAt = null;
+      Date endAt = null;
+      List<Split> splits = new ArrayList<>();
+      boolean doLog = false;
+      while (jp.nextToken() == JsonToken.FIELD_NAME) {
+        String fieldName = jp.currentName();
+        JsonToken token = jp.nextToken();
+        switch (fieldName) {
+          case "key":
+            key = text(jp);
+            break;
+          case "rules":
+            rules = deserializeTargetingRules(jp);
+            break;
+          case "startAt":
+            startAt = token == JsonToken.VALUE_NULL ? null : parseUtcISODateString(text(jp));
+            break;
+          case "endAt":
+            endAt = token == JsonToken.VALUE_NULL ? null : parseUtcISODateString(text(jp));
+            break;
+          case "splits":
+            splits = deserializeSplits(jp);
+            break;
+          case "doLog":
+            doLog = bool(jp);
+            break;
+          default:
+            jp.skipChildren();
+        }
+      }
+      allocations.add(new Allocation(key, rules, startAt, endAt, splits, doLog));
+    }
+    return allocations;
+  }
+
+  private Set<TargetingRule> deserializeTargetingRules(JsonParser jp) throws IOException {
+    Set<TargetingRule> targetingRules = new HashSet<>();
+    if (jp.currentToken() != JsonToken.START_ARRAY) {
+      jp.skipChildren();
+      return targetingRules;
+    }
+    while (nextObjectInArray(jp)) {
+      Set<TargetingCondition> conditions = new HashSet<>();
+      while (jp.nextToken() == JsonToken.FIELD_NAME) {
+        String fieldName = jp.currentName();
+        jp.nextToken();
+        if ("conditions".equals(fieldName) && jp.currentToken() == JsonToken.START_ARRAY) {
+          while (nextObjectInArray(jp)) {
+            TargetingCondition condition = deserializeCondition(jp);
+            if (condition != null) {
+              conditions.add(condition);
+            }
+          }
+        } else {
+          jp.skipChildren();
+        }
+      }
+      targetingRules.add(new TargetingRule(conditions));
+    }
+    return targetingRules;
+  }
+
+  private TargetingCondition deserializeCondition(JsonParser jp) throws IOException {
+    String attribute = null;
+    String operatorKey = null;
+    EppoValue value = EppoValue.nullValue();
+    while (jp.nextToken() == JsonToken.FIELD_NAME) {
+      String fieldName = jp.currentName();
+      jp.nextToken();
+      switch (fieldName) {
+        case "attribute":
+          attribute = text(jp);
+          break;
+        case "operator":
+          operatorKey = text(jp);
+          break;
+        case "value":
+          value = eppoValueDeserializer.deserializeCurrentValue(jp);
+          break;
+        default:
+          jp.skipChildren();
+      }
+    }
+    OperatorType operator = OperatorType.fromString(operatorKey);
+    if (operator == null) {
+      log.warn("Unknown operator \"{}\"", operatorKey);
+      return null;
+    }
+    return new TargetingCondition(operator, attribute, value);
+  }
+
+  private List<Split> deserializeSplits(JsonParser jp) throws IOException {
+    List<Split> splits = new ArrayList<>();
+    if (jp.currentToken() != JsonToken.START_ARRAY) {
+      jp.skipChildren();
+      return splits;
+    }
+    while (nextObjectInArray(jp)) {
+      String variationKey = null;
+      Set<Shard> shards = new HashSet<>();
+      Map<String, String> extraLogging = new HashMap<>();
+      while (jp.nextToken() == JsonToken.FIELD_NAME) {
+        String fieldName = jp.currentName();
+        JsonToken token = jp.nextToken();
+        switch (fieldName) {
+          case "variationKey":
+            variationKey = text(jp);
+            break;
+          case "shards":
+            shards = deserializeShards(jp);
+            break;
+          case "extraLogging":
+            extraLogging = new HashMap<>();
+            if (token == JsonToken.START_OBJECT) {
+              while (jp.nextToken() == JsonToken.FIELD_NAME) {
+                String logKey = jp.currentName();
+                jp.nextToken();
+                extraLogging.put(logKey, text(jp));
+              }
+            } else {
+              jp.skipChildren();
+            }
+            break;
+          default:
+            jp.skipChildren();
+        }
+      }
+      splits.add(new Split(variationKey, shards, extraLogging));
+    }
+    return splits;
+  }
+
+  private Set<Shard> deserializeShards(JsonParser jp) throws IOException {
+    Set<Shard> shards = new HashSet<>();
+    if (jp.currentToken() != JsonToken.START_ARRAY) {
+      jp.skipChildren();
+      return shards;
+    }
+    while (nextObjectInArray(jp)) {
+      String salt = null;
+      Set<ShardRange> ranges = new HashSet<>();
+      while (jp.nextToken() == JsonToken.FIELD_NAME) {
+        String fieldName = jp.currentName();
+        jp.nextToken();
+        if ("salt".equals(fieldName)) {
+          salt = text(jp);
+        } else if ("ranges".equals(fieldName) && jp.currentToken() == JsonToken.START_ARRAY) {
+          while (nextObjectInArray(jp)) {
+            int start = 0;
+            int end = 0;
+            while (jp.nextToken() == JsonToken.FIELD_NAME) {
+              String rangeField = jp.currentName();
+              jp.nextToken();
+              if ("start".equals(rangeField)) {
+                start = integer(jp);
+              } else if ("end".equals(rangeField)) {
+                end = integer(jp);
+              } else {
+                jp.skipChildren();
+              }
+            }
+            ranges.add(new ShardRange(start, end));
+          }
+        } else {
+          jp.skipChildren();
+        }
+      }
+      shards.add(new Shard(salt, ranges));
+    }
+    return shards;
+  }
+
+  private BanditReference deserializeBanditReference(JsonParser jp) throws IOException {
+    String modelVersion = null;
+    List<BanditFlagVariation> flagVariations = new ArrayList<>();
+    if (jp.currentToken() != JsonToken.START_OBJECT) {
+      jp.skipChildren();
+      return new BanditReference(modelVersion, flagVariations);
+    }
+    while (jp.nextToken() == JsonToken.FIELD_NAME) {
+      String fieldName = jp.currentName();
+      jp.nextToken();
+      if ("modelVersion".equals(fieldName)) {
+        modelVersion = text(jp);
+      } else if ("flagVariations".equals(fieldName) && jp.currentToken() == JsonToken.START_ARRAY) {
+        while (nextObjectInArray(jp)) {
+          flagVariations.add(deserializeBanditFlagVariation(jp));
+        }
+      } else {
+        jp.skipChildren();
+      }
+    }
+    return new BanditReference(modelVersion, flagVariations);
+  }
+
+  private BanditFlagVariation deserializeBanditFlagVariation(JsonParser jp) throws IOException {
+    String banditKey = null;
+    String flagKey = null;
+    String allocationKey = null;
+    String variationKey = null;
+    String variationValue = null;
+    while (jp.nextToken() == JsonToken.FIELD_NAME) {
+      String fieldName = jp.currentName();
+      jp.nextToken();
+      switch (fieldName) {
+        case "key":
+          banditKey = text(jp);
+          break;
+        case "flagKey":
+          flagKey = text(jp);
+          break;
+        case "allocationKey":
+          allocationKey = text(jp);
+          break;
+        case "variationKey":
+          variationKey = text(jp);
+          break;
+        case "variationValue":
+          variationValue = text(jp);
+          break;
+        default:
+          jp.skipChildren();
+      }
+    }
+    return new BanditFlagVariation(banditKey, flagKey, allocationKey, variationKey, variationValue);
+  }
+
+  /**
+   * Moves to the next object in the array, skipping other values. Returns false at the end of the
+   * array.
+   */
+  private static boolean nextObjectInArray(JsonParser jp) throws IOException {
+    JsonToken token;
+    while ((token = jp.nextToken()) != JsonToken.END_ARRAY && token != null) {
+      if (token == JsonToken.START_OBJECT) {
+        return true;
+      }
+      jp.skipChildren();
+    }
+    return false;
+  }
+
+  /** The current value as text, like {@code JsonNode.asText()}. */
+  private static String text(JsonParser jp) throws IOException {
+    switch (jp.currentToken()) {
+      case START_OBJECT:
+      case START_ARRAY:
+        jp.skipChildren();
+        return "";
+      case VALUE_NUMBER_FLOAT:
+        return String.valueOf(jp.getDoubleValue());
+      default:
+        return jp.getText();
+    }
+  }
+
+  /** The current value as a boolean, like {@code JsonNode.asBoolean()}. */
+  private static boolean bool(JsonParser jp) throws IOException {
+    boolean value = jp.getValueAsBoolean();
+    jp.skipChildren();
+    return value;
+  }
+
+  /** The current value as an int, like {@code JsonNode.asInt()}. */
+  private static int integer(JsonParser jp) throws IOException {
+    int value = jp.getValueAsInt();
+    jp.skipChildren();
+    return value;
+  }
+}
@@ -25,6 +25,7 @@ import java.util.concurrent.CompletionException;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -503,6 +504,168 @@ public class BaseEppoClientTest {
     assertEquals(expectedMeta, capturedAssignment.getMetaData());
   }
 
+  @Test
+  public void testGetAllAssignments() throws IOException {
+    String flagConfig =
+        FileUtils.readFileToString(new File("src/test/resources/flags-v1.json"), "UTF8");
+    initClientWithData(immediateConfigFuture(flagConfig, false), false, false);
+    Attributes subjectAttributes = new Attributes();
+    subjectAttributes.put("age", EppoValue.valueOf(30));
+    subjectAttributes.put("employer", EppoValue.valueOf("Eppo"));
+    subjectAttributes.put("number", EppoValue.valueOf("123456789"));
+
+    SubjectAssignments assignments = eppoClient.getAllAssignments("alice", subjectAttributes);
+
+    assertEquals("alice", assignments.getSubjectKey());
+    assertEquals(3.1415926, assignments.getDoubleAssignment("numeric_flag", 0.0), 0.0000001);
+    assertEquals(2, assignments.getIntegerAssignment("numeric-one-of", 0));
+    // Wrong type or unknown flag fall back to the default
+    assertEquals("default", assignments.getStringAssignment("numeric_flag", "default"));
+    assertEquals(7, assignments.getIntegerAssignment("no-such-flag", 7));
+    assertFalse(assignments.hasAssignment("disabled_flag"));
+
+    // Same as evaluating each flag on its own
+    Configuration config = eppoClient.getConfiguration();
+    for (String flagKey : config.getFlagKeys()) {
+      EppoValue single =
+          singleAssignment(flagKey, config.getFlagType(flagKey), "alice", subjectAttributes);
+      assertEquals(single, assignments.getValue(flagKey), flagKey);
+    }
+
+    // Logged in one batch, as the individual evaluations above logged one by one
+    ArgumentCaptor<List<Assignment>> batchCaptor = ArgumentCaptor.forClass(List.class);
+    verify(mockAssignmentLogger, times(1)).logAssignments(batchCaptor.capture());
+    assertTrue(batchCaptor.getValue().size() > 1);
+    Set<String> loggedFlags = new HashSet<>();
+    for (Assignment assignment : batchCaptor.getValue()) {
+      assertEquals("alice", assignment.getSubject());
+      loggedFlags.add(assignment.getFeatureFlag());
+    }
+    assertTrue(loggedFlags.contains("numeric_flag"));
+    verify(mockAssignmentLogger, times(batchCaptor.getValue().size()))
+        .logAssignment(any(Assignment.class));
+
+    // Subset of flags
+    SubjectAssignments subset =
+        eppoClient.getAllAssignments(
+            "alice", subjectAttributes, Arrays.asList("numeric_flag", "no-such-flag"));
+    assertEquals(Collections.singleton("numeric_flag"), subset.getFlagKeys());
+  }
+
+  @Test
+  public void testGetAllAssignmentsInBulk() throws IOException {
+    String flagConfig =
+        FileUtils.readFileToString(new File("src/test/resources/flags-v1.json"), "UTF8");
+    initClientWithData(immediateConfigFuture(flagConfig, false), false, false);
+    List<Subject> subjects = new ArrayList<>();
+    for (int i = 0; i < 2000; i++) {
+      Attributes subjectAttributes = new Attributes();
+      subjectAttributes.put("age", i % 100);
+      subjectAttributes.put("country", i % 2 == 0 ? "US" : "Mexico");
+      subjects.add(new Subject("subject-" + i, subjectAttributes));
+    }
+    List<String> flagKeys = Arrays.asList("numeric_flag", "new-user-onboarding", "integer-flag");
+
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      List<SubjectAssignments> results = new ArrayList<>();
+      eppoClient.getAllAssignmentsInBulk(subjects.iterator(), flagKeys, pool, results::add, false);
+      verifyNoInteractions(mockAssignmentLogger);
+
+      // Same results, in the same order, as evaluating one subject at a time
+      assertEquals(subjects.size(), results.size());
+      for (int i = 0; i < subjects.size(); i++) {
+        Subject subject = subjects.get(i);
+        SubjectAssignments expected =
+            eppoClient.getAllAssignments(subject.getKey(), subject.getAttributes(), flagKeys);
+        assertEquals(subject.getKey(), results.get(i).getSubjectKey());
+        assertEquals(expected.asMap(), results.get(i).asMap());
+      }
+      int loggedCount = countBatchLoggedAssignments();
+
+      // Logs the same assignments when asked to
+      reset(mockAssignmentLogger);
+      eppoClient.getAllAssignmentsInBulk(subjects.iterator(), flagKeys, pool, r -> {}, true);
+      assertTrue(loggedCount > 0);
+      assertEquals(loggedCount, countBatchLoggedAssignments());
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void testGetAllAssignmentsInBulkChecksSubjectKeysBeforeEvaluating() throws IOException {
+    String flagConfig =
+        FileUtils.readFileToString(new File("src/test/resources/flags-v1.json"), "UTF8");
+    List<Subject> subjects = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      // One subject in the third chunk has no key
+      subjects.add(new Subject(i == 600 ? "" : "subject-" + i, new Attributes()));
+    }
+    List<String> flagKeys = Collections.singletonList("numeric_flag");
+
+    ForkJoinPool pool = new ForkJoinPool(1);
+    try {
+      // Fails while reading the subjects, before any chunk is delivered
+      initClientWithData(immediateConfigFuture(flagConfig, false), false, false);
+      List<SubjectAssignments> results = new ArrayList<>();
+      assertThrows(
+          IllegalArgumentException.class,
+          () ->
+              eppoClient.getAllAssignmentsInBulk(
+                  subjects.iterator(), flagKeys, pool, results::add, true));
+      assertTrue(results.isEmpty());
+      verifyNoInteractions(mockAssignmentLogger);
+
+      // Skips the subject in graceful mode
+      initClientWithData(immediateConfigFuture(flagConfig, false), false, true);
+      eppoClient.getAllAssignmentsInBulk(subjects.iterator(), flagKeys, pool, results::add, false);
+      assertEquals(subjects.size() - 1, results.size());
+      assertEquals("subject-599", results.get(599).getSubjectKey());
+      assertEquals("subject-601", results.get(600).getSubjectKey());
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  private int countBatchLoggedAssignments() {
+    ArgumentCaptor<List<Assignment>> batchCaptor = ArgumentCaptor.forClass(List.class);
+    verify(mockAssignmentLogger, atLeastOnce()).logAssignments(batchCaptor.capture());
+    int count = 0;
+    for (List<Assignment> batch : batchCaptor.getAllValues()) {
+      count += batch.size();
+    }
+    return count;
+  }
+
+  private EppoValue singleAssignment(
+      String flagKey, VariationType type, String subjectKey, Attributes subjectAttributes) {
+    AssignmentDetails<?> details;
+    switch (type) {
+      case BOOLEAN:
+        details =
+            eppoClient.getBooleanAssignmentDetails(flagKey, subjectKey, subjectAttributes, false);
+        break;
+      case INTEGER:
+        details = eppoClient.getIntegerAssignmentDetails(flagKey, subjectKey, subjectAttributes, 0);
+        break;
+      case NUMERIC:
+        details = eppoClient.getDoubleAssignmentDetails(flagKey, subjectKey, subjectAttributes, 0);
+        break;
+      case JSON:
+        details =
+            eppoClient.getJSONAssignmentDetails(
+                flagKey, subjectKey, subjectAttributes, mapper.createObjectNode());
+        break;
+      default:
+        details = eppoClient.getStringAssignmentDetails(flagKey, subjectKey, subjectAttributes, "");
+    }
+    EvaluationDetails evaluationDetails = details.getEvaluationDetails();
+    return evaluationDetails.getFlagEvaluationCode() == FlagEvaluationCode.MATCH
+        ? evaluationDetails.getVariationValue()
+        : null;
+  }
+
   @Test
   public void testAssignmentNotDeduplicatedWithoutCache() {
     initClient();
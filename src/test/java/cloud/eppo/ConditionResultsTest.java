@@ -0,0 +1,65 @@
+package cloud.eppo;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import cloud.eppo.api.EppoValue;
+import cloud.eppo.model.CompiledCondition;
+import cloud.eppo.model.ConditionTable;
+import cloud.eppo.ufc.dto.OperatorType;
+import cloud.eppo.ufc.dto.TargetingCondition;
+import org.junit.jupiter.api.Test;
+
+public class ConditionResultsTest {
+
+  @Test
+  public void testEqualConditionsAreInterned() {
+    ConditionTable table = new ConditionTable(false);
+    CompiledCondition first =
+        table.intern(
+            new TargetingCondition(OperatorType.GREATER_THAN, "age", EppoValue.valueOf(18)));
+    CompiledCondition second =
+        table.intern(
+            new TargetingCondition(OperatorType.GREATER_THAN, "age", EppoValue.valueOf(18)));
+    CompiledCondition other =
+        table.intern(new TargetingCondition(OperatorType.LESS_THAN, "age", EppoValue.valueOf(65)));
+
+    assertSame(first, second);
+    assertSame(table, first.getTable());
+    assertEquals(0, first.getIndex());
+    assertEquals(1, other.getIndex());
+    assertEquals(2, table.size());
+  }
+
+  @Test
+  public void testRecordsOutcomesOfOneTable() {
+    ConditionTable table = new ConditionTable(false);
+    CompiledCondition[] conditions = new CompiledCondition[100];
+    for (int i = 0; i < conditions.length; i++) {
+      conditions[i] =
+          table.intern(
+              new TargetingCondition(OperatorType.GREATER_THAN, "age", EppoValue.valueOf(i)));
+    }
+
+    ConditionResults results = new ConditionResults();
+    for (int i = 0; i < conditions.length; i++) {
+      assertTrue(results.isTracked(conditions[i]));
+      assertFalse(results.isEvaluated(conditions[i]));
+      results.record(conditions[i], i % 3 == 0);
+    }
+    for (int i = 0; i < conditions.length; i++) {
+      assertTrue(results.isEvaluated(conditions[i]));
+      assertEquals(i % 3 == 0, results.matched(conditions[i]));
+    }
+
+    // Conditions from another table, or not interned, are not remembered
+    CompiledCondition fromOtherTable =
+        new ConditionTable(false)
+            .intern(new TargetingCondition(OperatorType.GREATER_THAN, "age", EppoValue.valueOf(0)));
+    assertFalse(results.isTracked(fromOtherTable));
+    assertFalse(
+        results.isTracked(
+            CompiledCondition.compile(
+                new TargetingCondition(OperatorType.GREATER_THAN, "age", EppoValue.valueOf(0)),
+                false)));
+  }
+}
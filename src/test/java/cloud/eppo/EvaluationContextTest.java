@@ -0,0 +1,238 @@
+package cloud.eppo;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import cloud.eppo.api.*;
+import cloud.eppo.logging.Assignment;
+import cloud.eppo.logging.AssignmentLogger;
+import cloud.eppo.logging.BanditAssignment;
+import cloud.eppo.logging.BanditLogger;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+public class EvaluationContextTest {
+  private static final String TEST_HOST = "http://localhost:4000";
+
+  private AssignmentLogger mockAssignmentLogger;
+  private BanditLogger mockBanditLogger;
+
+  @BeforeEach
+  public void initLoggers() {
+    mockAssignmentLogger = mock(AssignmentLogger.class);
+    mockBanditLogger = mock(BanditLogger.class);
+  }
+
+  private BaseEppoClient initClient(CompletableFuture<Configuration> initialConfig) {
+    return new BaseEppoClient(
+        "dummy-api-key",
+        "java",
+        "100.1.0",
+        TEST_HOST,
+        mockAssignmentLogger,
+        mockBanditLogger,
+        null,
+        true,
+        false,
+        true,
+        initialConfig,
+        null,
+        null);
+  }
+
+  private static Configuration flagsConfiguration() throws IOException {
+    return Configuration.builder(
+            FileUtils.readFileToByteArray(new File("src/test/resources/flags-v1.json")))
+        .build();
+  }
+
+  private static Attributes aliceAttributes() {
+    Attributes attributes = new Attributes();
+    attributes.put("age", 30);
+    attributes.put("employer", "Eppo");
+    attributes.put("number", "123456789");
+    return attributes;
+  }
+
+  @Test
+  public void testMatchesClientAssignments() throws IOException {
+    BaseEppoClient client = initClient(CompletableFuture.completedFuture(flagsConfiguration()));
+    EvaluationContext context = client.forSubject("alice", aliceAttributes());
+
+    assertEquals("alice", context.getSubjectKey());
+    assertEquals(
+        client.getDoubleAssignment("numeric_flag", "alice", aliceAttributes(), 0.0),
+        context.getDoubleAssignment("numeric_flag", 0.0),
+        0.0000001);
+    assertEquals(
+        client.getIntegerAssignment("numeric-one-of", "alice", aliceAttributes(), 0),
+        context.getIntegerAssignment("numeric-one-of", 0));
+    assertEquals(
+        client.getStringAssignment("new-user-onboarding", "alice", aliceAttributes(), "default"),
+        context.getStringAssignment("new-user-onboarding", "default"));
+
+    // Defaults for wrong types, unknown and disabled flags
+    assertEquals("default", context.getStringAssignment("numeric_flag", "default"));
+    assertEquals("default", context.getStringAssignment("no-such-flag", "default"));
+    assertEquals(7, context.getIntegerAssignment("disabled_flag", 7));
+  }
+
+  @Test
+  public void testMemoizesFlagEvaluations() throws IOException {
+    BaseEppoClient client = initClient(CompletableFuture.completedFuture(flagsConfiguration()));
+    EvaluationContext context = client.forSubject("alice", aliceAttributes());
+
+    double first = context.getDoubleAssignment("numeric_flag", 0.0);
+    double second = context.getDoubleAssignment("numeric_flag", 0.0);
+    assertEquals(first, second, 0.0);
+
+    // Evaluated, and so logged, once
+    ArgumentCaptor<List<Assignment>> batchCaptor = ArgumentCaptor.forClass(List.class);
+    verify(mockAssignmentLogger, times(1)).logAssignments(batchCaptor.capture());
+    assertEquals(1, batchCaptor.getValue().size());
+    assertEquals("numeric_flag", batchCaptor.getValue().get(0).getFeatureFlag());
+  }
+
+  @Test
+  public void testPinsConfiguration() throws IOException {
+    CompletableFuture<Configuration> initialConfig = new CompletableFuture<>();
+    BaseEppoClient client = initClient(initialConfig);
+    EvaluationContext context = client.forSubject("alice", aliceAttributes());
+
+    initialConfig.complete(flagsConfiguration());
+
+    // The client sees the new configuration, the context keeps the one it was created with
+    assertEquals(
+        3.1415926, client.getDoubleAssignment("numeric_flag", "alice", aliceAttributes(), 0.0));
+    assertEquals(0.0, context.getDoubleAssignment("numeric_flag", 0.0), 0.0);
+    assertTrue(context.getConfiguration().isEmpty());
+    assertEquals(
+        3.1415926,
+        client.forSubject("alice", aliceAttributes()).getDoubleAssignment("numeric_flag", 0.0),
+        0.0000001);
+  }
+
+  private static Configuration banditConfiguration() throws IOException {
+    String flagConfig =
+        FileUtils.readFileToString(
+            new File("src/test/resources/static/initial-flag-config-with-bandit.json"), "UTF8");
+    String banditParameters =
+        FileUtils.readFileToString(
+            new File("src/test/resources/static/initial-bandit-parameters.json"), "UTF8");
+    return Configuration.builder(flagConfig.getBytes()).banditParameters(banditParameters).build();
+  }
+
+  private static BanditActions shoeActions() {
+    BanditActions actions = new BanditActions();
+    Attributes nikeAttributes = new Attributes();
+    nikeAttributes.put("brand_affinity", 1.5);
+    nikeAttributes.put("loyalty_tier", "silver");
+    actions.put("nike", nikeAttributes);
+    Attributes adidasAttributes = new Attributes();
+    adidasAttributes.put("brand_affinity", -1.0);
+    adidasAttributes.put("loyalty_tier", "bronze");
+    actions.put("adidas", adidasAttributes);
+    return actions;
+  }
+
+  @Test
+  public void testBanditAction() throws IOException {
+    BaseEppoClient client = initClient(CompletableFuture.completedFuture(banditConfiguration()));
+
+    Attributes subjectAttributes = new Attributes();
+    subjectAttributes.put("age", 25);
+    subjectAttributes.put("country", "USA");
+    subjectAttributes.put("gender_identity", "female");
+    BanditActions actions = shoeActions();
+
+    BanditResult expected =
+        client.getBanditAction("banner_bandit_flag", "bob", subjectAttributes, actions, "control");
+    EvaluationContext context = client.forSubject("bob", subjectAttributes);
+    BanditResult result = context.getBanditAction("banner_bandit_flag", actions, "control");
+
+    assertEquals("banner_bandit", result.getVariation());
+    assertEquals(expected.getVariation(), result.getVariation());
+    assertEquals(expected.getAction(), result.getAction());
+
+    ArgumentCaptor<BanditAssignment> banditLogCaptor =
+        ArgumentCaptor.forClass(BanditAssignment.class);
+    verify(mockBanditLogger, times(2)).logBanditAssignment(banditLogCaptor.capture());
+    BanditAssignment contextBanditAssignment = banditLogCaptor.getAllValues().get(1);
+    assertEquals("bob", contextBanditAssignment.getSubject());
+    assertEquals(expected.getAction(), contextBanditAssignment.getAction());
+    Attributes expectedNumericAttributes = new Attributes();
+    expectedNumericAttributes.put("age", 25);
+    assertEquals(expectedNumericAttributes, contextBanditAssignment.getSubjectNumericAttributes());
+
+    // No actions, no bandit evaluation
+    BanditResult noActions =
+        context.getBanditAction("banner_bandit_flag", new BanditActions(), "control");
+    assertEquals("banner_bandit", noActions.getVariation());
+    assertNull(noActions.getAction());
+  }
+
+  @Test
+  public void testBanditActionsInBulk() throws IOException {
+    BaseEppoClient client = initClient(CompletableFuture.completedFuture(banditConfiguration()));
+    List<BanditSubject> subjects = new ArrayList<>();
+    for (int i = 0; i < 600; i++) {
+      Attributes subjectAttributes = new Attributes();
+      subjectAttributes.put("age", 18 + i % 50);
+      subjectAttributes.put("country", i % 3 == 0 ? "USA" : "Mexico");
+      // Some subjects have no actions to choose from
+      subjects.add(
+          new BanditSubject(
+              "subject-" + i, subjectAttributes, i % 7 == 0 ? new BanditActions() : shoeActions()));
+    }
+
+    ForkJoinPool pool = new ForkJoinPool(2);
+    try {
+      List<BanditSubject> resultSubjects = new ArrayList<>();
+      List<BanditResult> results = new ArrayList<>();
+      client.getBanditActionsInBulk(
+          "banner_bandit_flag",
+          subjects.iterator(),
+          "control",
+          pool,
+          (subject, result) -> {
+            resultSubjects.add(subject);
+            results.add(result);
+          },
+          false);
+      verifyNoInteractions(mockAssignmentLogger, mockBanditLogger);
+
+      // Same results, in the same order, as choosing for one subject at a time
+      assertEquals(subjects, resultSubjects);
+      int actionCount = 0;
+      for (int i = 0; i < subjects.size(); i++) {
+        BanditSubject subject = subjects.get(i);
+        BanditResult expected =
+            client
+                .forSubject(subject.getKey(), subject.getAttributes())
+                .getBanditAction("banner_bandit_flag", subject.getActions(), "control");
+        assertEquals(expected, results.get(i));
+        if (expected.getAction() != null) {
+          actionCount++;
+        }
+      }
+      assertTrue(actionCount > 0);
+
+      // Logs one bandit assignment per chosen action when asked to
+      reset(mockAssignmentLogger, mockBanditLogger);
+      client.getBanditActionsInBulk(
+          "banner_bandit_flag", subjects.iterator(), "control", pool, (s, r) -> {}, true);
+      verify(mockBanditLogger, times(actionCount)).logBanditAssignment(any());
+      verify(mockAssignmentLogger, atLeastOnce()).logAssignments(anyList());
+    } finally {
+      pool.shutdown();
+    }
+  }
+}
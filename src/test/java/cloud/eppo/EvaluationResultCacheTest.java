@@ -0,0 +1,176 @@
+package cloud.eppo;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import cloud.eppo.api.Attributes;
+import cloud.eppo.api.Configuration;
+import cloud.eppo.logging.Assignment;
+import cloud.eppo.logging.AssignmentLogger;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class EvaluationResultCacheTest {
+  private AssignmentLogger mockAssignmentLogger;
+  private ConfigurationStore configurationStore;
+  private BaseEppoClient eppoClient;
+  private EvaluationResultCache resultCache;
+
+  @BeforeEach
+  public void initClient() throws IOException {
+    mockAssignmentLogger = mock(AssignmentLogger.class);
+    configurationStore = new ConfigurationStore();
+    eppoClient =
+        new BaseEppoClient(
+            "dummy-api-key",
+            "java",
+            "100.1.0",
+            "http://localhost:4000",
+            mockAssignmentLogger,
+            null,
+            configurationStore,
+            false,
+            false,
+            true,
+            CompletableFuture.completedFuture(flagsConfiguration()),
+            null,
+            null);
+    resultCache = new EvaluationResultCache(1000);
+    eppoClient.setResultCache(resultCache);
+  }
+
+  private static Configuration flagsConfiguration() throws IOException {
+    return Configuration.builder(
+            FileUtils.readFileToByteArray(new File("src/test/resources/flags-v1.json")))
+        .build();
+  }
+
+  private static Attributes attributes(String number) {
+    Attributes attributes = new Attributes();
+    attributes.put("number", number);
+    return attributes;
+  }
+
+  @Test
+  public void testCachesAssignments() {
+    assertEquals(
+        2, eppoClient.getIntegerAssignment("numeric-one-of", "alice", attributes("123456789"), 0));
+    assertEquals(0, resultCache.getHitCount());
+    assertEquals(1, resultCache.getMissCount());
+    assertEquals(1, resultCache.size());
+
+    // Equal attributes hit, even in another map
+    assertEquals(
+        2, eppoClient.getIntegerAssignment("numeric-one-of", "alice", attributes("123456789"), 0));
+    assertEquals(1, resultCache.getHitCount());
+    assertEquals(0.5, resultCache.getHitRate(), 0.0);
+
+    // Cached assignments are still logged
+    verify(mockAssignmentLogger, times(2)).logAssignment(any(Assignment.class));
+
+    // Different attributes or subjects miss
+    assertEquals(1, eppoClient.getIntegerAssignment("numeric-one-of", "alice", attributes("1"), 0));
+    eppoClient.getIntegerAssignment("numeric-one-of", "bob", attributes("123456789"), 0);
+    assertEquals(1, resultCache.getHitCount());
+    assertEquals(3, resultCache.size());
+  }
+
+  @Test
+  public void testCopiesAttributes() {
+    Attributes subjectAttributes = attributes("123456789");
+    assertEquals(
+        2, eppoClient.getIntegerAssignment("numeric-one-of", "alice", subjectAttributes, 0));
+
+    // Changing the attributes afterwards doesn't change the cached entry
+    subjectAttributes.put("number", "1");
+    assertEquals(
+        1, eppoClient.getIntegerAssignment("numeric-one-of", "alice", subjectAttributes, 0));
+    assertEquals(
+        2, eppoClient.getIntegerAssignment("numeric-one-of", "alice", attributes("123456789"), 0));
+    assertEquals(1, resultCache.getHitCount());
+  }
+
+  @Test
+  public void testInvalidatedByNewConfiguration() throws IOException {
+    eppoClient.getIntegerAssignment("numeric-one-of", "alice", attributes("123456789"), 0);
+    long invalidations = resultCache.getInvalidationCount();
+
+    long epoch = configurationStore.getConfigurationEpoch();
+    configurationStore.saveConfiguration(flagsConfiguration());
+    assertEquals(epoch + 1, configurationStore.getConfigurationEpoch());
+
+    assertEquals(
+        2, eppoClient.getIntegerAssignment("numeric-one-of", "alice", attributes("123456789"), 0));
+    assertEquals(0, resultCache.getHitCount());
+    assertEquals(invalidations + 1, resultCache.getInvalidationCount());
+    assertEquals(1, resultCache.size());
+  }
+
+  @Test
+  public void testInvalidatedWhenAllocationsStartOrEnd() {
+    eppoClient.setClock(() -> 1000000000000L); // 2001
+    assertEquals(
+        "old",
+        eppoClient.getStringAssignment("start-and-end-date-test", "alice", attributes("0"), ""));
+    eppoClient.setClock(() -> 1900000000000L); // 2030
+    assertEquals(
+        "current",
+        eppoClient.getStringAssignment("start-and-end-date-test", "alice", attributes("0"), ""));
+    assertEquals(0, resultCache.getHitCount());
+    assertEquals(
+        "current",
+        eppoClient.getStringAssignment("start-and-end-date-test", "alice", attributes("0"), ""));
+    assertEquals(1, resultCache.getHitCount());
+  }
+
+  @Test
+  public void testEvictsLeastRecentlyUsed() {
+    EvaluationResultCache smallCache = new EvaluationResultCache(16);
+    eppoClient.setResultCache(smallCache);
+    for (int i = 0; i < 200; i++) {
+      eppoClient.getIntegerAssignment("numeric-one-of", "subject-" + i, attributes("123456789"), 0);
+    }
+    assertTrue(smallCache.size() <= 16);
+    assertEquals(200 - smallCache.size(), smallCache.getEvictionCount());
+  }
+
+  @Test
+  public void testDisabledForOtherConfigurationStores() {
+    IConfigurationStore otherStore =
+        new IConfigurationStore() {
+          @Override
+          public Configuration getConfiguration() {
+            return Configuration.emptyConfig();
+          }
+
+          @Override
+          public CompletableFuture<Void> saveConfiguration(Configuration configuration) {
+            return CompletableFuture.completedFuture(null);
+          }
+        };
+    BaseEppoClient client =
+        new BaseEppoClient(
+            "dummy-api-key",
+            "java",
+            "100.1.0",
+            "http://localhost:4000",
+            mockAssignmentLogger,
+            null,
+            otherStore,
+            false,
+            false,
+            true,
+            null,
+            null,
+            null);
+    EvaluationResultCache cache = new EvaluationResultCache(10);
+    client.setResultCache(cache);
+    assertEquals(
+        0, client.getIntegerAssignment("numeric-one-of", "alice", attributes("123456789"), 0));
+    assertEquals(0, cache.getMissCount());
+  }
+}
@@ -10,6 +10,10 @@ import cloud.eppo.api.Attributes;
 import cloud.eppo.api.EppoValue;
 import cloud.eppo.api.EvaluationDetails;
 import cloud.eppo.api.FlagEvaluationCode;
+import cloud.eppo.model.CompiledAllocation;
+import cloud.eppo.model.CompiledCondition;
+import cloud.eppo.model.CompiledFlag;
+import cloud.eppo.model.CompiledShard;
 import cloud.eppo.model.ShardRange;
 import cloud.eppo.ufc.dto.Allocation;
 import cloud.eppo.ufc.dto.FlagConfig;
@@ -555,6 +559,12 @@ public class FlagEvaluatorTest {
     assertEquals("B", result.getVariation().getValue().stringValue());
     assertTrue(result.doLog());
 
+    // The matched rule names the deobfuscated attribute, even after the attributes change
+    EvaluationDetails details = result.getEvaluationDetails();
+    matchingEmailAttributes.clear();
+    assertEquals(
+        "email", details.getMatchedRule().getConditions().iterator().next().getAttribute());
+
     Attributes unknownEmailAttributes = new Attributes();
     unknownEmailAttributes.put("email", "eppo@test.com");
     result =
@@ -659,6 +669,208 @@ public class FlagEvaluatorTest {
     assertEquals(2, extraLogging.size());
   }
 
+  @Test
+  public void testCompiledFlag() {
+    Map<String, Variation> variations = createVariations("a", "b");
+    Set<TargetingRule> rules =
+        createRules("version", OperatorType.GREATER_THAN_OR_EQUAL_TO, EppoValue.valueOf("1.2.0"));
+    List<Allocation> allocations = createAllocations("first", createSplits("b"), rules);
+    allocations.addAll(createAllocations("default", createSplits("a", createShards("s", 0, 5))));
+    FlagConfig flag = createFlag("flag", true, variations, allocations);
+
+    CompiledFlag compiledFlag = CompiledFlag.compile(flag, false);
+    assertEquals(2, compiledFlag.getAllocations().length);
+    assertEquals("default", compiledFlag.getAllocations()[1].getKey());
+    assertEquals(2, compiledFlag.getAllocations()[1].getPosition());
+    assertEquals("s", compiledFlag.getAllocations()[1].getSplits()[0].getShards()[0].getSalt());
+
+    // The compiled plan is reusable and evaluates the same as the raw flag
+    for (String version : new String[] {"1.10.0", "1.1.9", "not-a-version"}) {
+      Attributes attributes = new Attributes();
+      attributes.put("version", version);
+      for (String subjectKey : new String[] {"alice", "bob", "charlie", "dave"}) {
+        FlagEvaluationResult expected =
+            FlagEvaluator.evaluateFlag(
+                flag, "flag", subjectKey, attributes, false, null, null, null);
+        FlagEvaluationResult actual =
+            FlagEvaluator.evaluateFlag(
+                compiledFlag, "flag", subjectKey, attributes, false, null, null, null);
+        assertEquals(expected.getAllocationKey(), actual.getAllocationKey());
+        assertEquals(expected.getVariation(), actual.getVariation());
+        assertEquals(
+            expected.getEvaluationDetails().getFlagEvaluationDescription(),
+            actual.getEvaluationDetails().getFlagEvaluationDescription());
+      }
+    }
+  }
+
+  @Test
+  public void testAssignFlagMatchesEvaluateFlag() {
+    Map<String, Variation> variations = createVariations("a", "b");
+    Set<TargetingRule> rules =
+        createRules("id", OperatorType.ONE_OF, EppoValue.valueOf(Collections.singletonList("bob")));
+    List<Allocation> allocations = createAllocations("first", createSplits("b"), rules);
+    allocations.addAll(createAllocations("default", createSplits("a", createShards("s", 0, 5))));
+    CompiledFlag flag =
+        CompiledFlag.compile(createFlag("flag", true, variations, allocations), false);
+
+    for (String subjectKey : new String[] {"alice", "bob", "charlie", "dave", "erin"}) {
+      FlagEvaluationResult expected =
+          FlagEvaluator.evaluateFlag(
+              flag, "flag", subjectKey, new Attributes(), false, null, null, null);
+      FlagAssignment actual = FlagEvaluator.assignFlag(flag, subjectKey, new Attributes(), false);
+      if (expected.getVariation() == null) {
+        assertNull(actual);
+      } else {
+        assertEquals(expected.getAllocationKey(), actual.getAllocationKey());
+        assertEquals(expected.getVariation(), actual.getVariation());
+        assertEquals(expected.getExtraLogging(), actual.getExtraLogging());
+        assertEquals(expected.doLog(), actual.doLog());
+      }
+    }
+
+    CompiledFlag disabledFlag =
+        CompiledFlag.compile(createFlag("flag", false, variations, allocations), false);
+    assertNull(FlagEvaluator.assignFlag(disabledFlag, "bob", new Attributes(), false));
+  }
+
+  @Test
+  public void testTrafficCheckedBeforeCostlyRules() {
+    Map<String, Variation> variations = createVariations("a", "b");
+    Set<TargetingRule> rules = createRules("email", OperatorType.MATCHES, EppoValue.valueOf("@x"));
+    rules
+        .iterator()
+        .next()
+        .getConditions()
+        .add(new TargetingCondition(OperatorType.IS_NULL, "country", EppoValue.valueOf(false)));
+    List<Allocation> allocations =
+        createAllocations("rollout", createSplits("b", createShards("s", 0, 1000)), rules);
+    allocations.addAll(createAllocations("default", createSplits("a")));
+    CompiledFlag flag =
+        CompiledFlag.compile(createFlag("flag", true, variations, allocations), false);
+
+    CompiledAllocation rollout = flag.getAllocations()[0];
+    assertTrue(rollout.isTrafficCheckedFirst());
+    assertFalse(flag.getAllocations()[1].isTrafficCheckedFirst());
+    // Cheapest condition first
+    CompiledCondition[] conditions = rollout.getRules()[0].getConditions();
+    assertEquals(OperatorType.IS_NULL, conditions[0].getOperator());
+    assertEquals(OperatorType.MATCHES, conditions[1].getOperator());
+
+    Attributes attributes = new Attributes();
+    attributes.put("email", "someone@x.com");
+    attributes.put("country", "US");
+    for (int i = 0; i < 200; i++) {
+      String subjectKey = "subject-" + i;
+      FlagEvaluationResult expected =
+          FlagEvaluator.evaluateFlag(flag, "flag", subjectKey, attributes, false, null, null, null);
+      FlagAssignment actual = FlagEvaluator.assignFlag(flag, subjectKey, attributes, false);
+      assertEquals(expected.getAllocationKey(), actual.getAllocationKey());
+      assertEquals(expected.getVariation(), actual.getVariation());
+    }
+  }
+
+  @Test
+  public void testFlagKinds() {
+    Map<String, Variation> variations = createVariations("a", "b");
+    Set<TargetingRule> rules =
+        createRules("id", OperatorType.ONE_OF, EppoValue.valueOf(Collections.singletonList("bob")));
+
+    // Fully rolled out
+    List<Allocation> rollout = createAllocations("rollout", createSplits("b"));
+    CompiledFlag constantFlag =
+        CompiledFlag.compile(createFlag("flag", true, variations, rollout), false);
+    assertEquals(CompiledFlag.Kind.CONSTANT, constantFlag.getKind());
+    FlagAssignment constantAssignment = constantFlag.getConstantAssignment();
+    assertEquals("rollout", constantAssignment.getAllocationKey());
+    assertEquals("b", constantAssignment.getVariation().getKey());
+    assertSame(
+        constantAssignment,
+        FlagEvaluator.assignFlag(constantFlag, "alice", new Attributes(), false));
+    FlagEvaluationResult details =
+        FlagEvaluator.evaluateFlag(
+            constantFlag, "flag", "alice", new Attributes(), false, null, null, null);
+    assertEquals(details.getVariation(), constantAssignment.getVariation());
+    assertEquals(details.getExtraLogging(), constantAssignment.getExtraLogging());
+    assertEquals(details.doLog(), constantAssignment.doLog());
+
+    // Disabled
+    CompiledFlag disabledFlag =
+        CompiledFlag.compile(createFlag("flag", false, variations, rollout), false);
+    assertEquals(CompiledFlag.Kind.CONSTANT, disabledFlag.getKind());
+    assertNull(disabledFlag.getConstantAssignment());
+
+    // Traffic split only
+    List<Allocation> experiment =
+        createAllocations("experiment", createSplits("a", createShards("s", 0, 5)));
+    CompiledFlag trafficFlag =
+        CompiledFlag.compile(createFlag("flag", true, variations, experiment), false);
+    assertEquals(CompiledFlag.Kind.TRAFFIC_ONLY, trafficFlag.getKind());
+    assertNull(trafficFlag.getConstantAssignment());
+
+    // Targeted before a full rollout
+    List<Allocation> targeted = createAllocations("targeted", createSplits("a"), rules);
+    targeted.addAll(rollout);
+    CompiledFlag ruleFlag =
+        CompiledFlag.compile(createFlag("flag", true, variations, targeted), false);
+    assertEquals(CompiledFlag.Kind.RULE_BASED, ruleFlag.getKind());
+    assertNull(ruleFlag.getConstantAssignment());
+  }
+
+  @Test
+  public void testScheduledAllocations() {
+    Map<String, Variation> variations = createVariations("a", "b");
+    List<Allocation> allocations = new ArrayList<>();
+    allocations.add(
+        new Allocation("launch", null, new Date(1000), new Date(2000), createSplits("b"), true));
+    allocations.addAll(createAllocations("default", createSplits("a")));
+    CompiledFlag flag =
+        CompiledFlag.compile(createFlag("flag", true, variations, allocations), false);
+    assertEquals(CompiledFlag.Kind.TRAFFIC_ONLY, flag.getKind());
+
+    // Out of order, to move back and forth across transitions
+    long[] times = {0, 999, 1000, 1500, 2000, 2001, 5000, 1999, 500};
+    for (long now : times) {
+      boolean launched = now >= 1000 && now <= 2000;
+      assertEquals(launched ? 2 : 1, flag.getActiveAllocations(now).length);
+
+      FlagAssignment assignment =
+          FlagEvaluator.assignFlag(flag, "alice", new Attributes(), false, now);
+      assertEquals(launched ? "launch" : "default", assignment.getAllocationKey());
+      FlagEvaluationResult result =
+          FlagEvaluator.evaluateFlag(
+              flag, "flag", "alice", new Attributes(), false, null, null, null, now);
+      assertEquals(assignment.getVariation(), result.getVariation());
+    }
+  }
+
+  @Test
+  public void testEvaluationDetailsCopy() {
+    Map<String, Variation> variations = createVariations("a");
+    Set<TargetingRule> rules =
+        createRules("id", OperatorType.ONE_OF, EppoValue.valueOf(Collections.singletonList("bob")));
+    List<Allocation> allocations = createAllocations("targeted", createSplits("a"), rules);
+    allocations.addAll(createAllocations("default", createSplits("a")));
+    FlagConfig flag = createFlag("flag", true, variations, allocations);
+
+    EvaluationDetails details =
+        FlagEvaluator.evaluateFlag(
+                flag, "flag", "alice", new Attributes(), false, "Test", null, null)
+            .getEvaluationDetails();
+
+    // Details built on demand are stable and carried over when copying
+    assertSame(details.getUnmatchedAllocations(), details.getUnmatchedAllocations());
+    EvaluationDetails copy = EvaluationDetails.builder(details).banditKey("bandit").build();
+    assertEquals("bandit", copy.getBanditKey());
+    assertEquals(details.getFlagEvaluationDescription(), copy.getFlagEvaluationDescription());
+    assertEquals("default", copy.getMatchedAllocation().getKey());
+    assertEquals(1, copy.getUnmatchedAllocations().size());
+    assertEquals(
+        AllocationEvaluationCode.FAILING_RULE,
+        copy.getUnmatchedAllocations().get(0).getAllocationEvaluationCode());
+    assertTrue(copy.getUnevaluatedAllocations().isEmpty());
+  }
+
   private Map<String, Variation> createVariations(String key) {
     return createVariations(key, null, null);
   }
@@ -680,6 +892,48 @@ public class FlagEvaluatorTest {
     return variations;
   }
 
+  @Test
+  public void testCompiledShardRanges() {
+    Set<ShardRange> ranges = new HashSet<>();
+    for (int start = 0; start < 10000; start += 100) {
+      ranges.add(new ShardRange(start, start + 10));
+    }
+    CompiledShard shard = CompiledShard.compile(new Shard("salt", ranges), false);
+    assertNull(shard.getRangeProblem());
+    for (int assignedShard = 0; assignedShard < 10000; assignedShard++) {
+      assertEquals(assignedShard % 100 < 10, shard.contains(assignedShard));
+    }
+    assertFalse(shard.contains(-1));
+    assertFalse(shard.contains(10000));
+
+    // Adjacent and overlapping ranges are merged; empty ranges are ignored
+    Set<ShardRange> messyRanges = new HashSet<>();
+    messyRanges.add(new ShardRange(0, 50));
+    messyRanges.add(new ShardRange(50, 100));
+    messyRanges.add(new ShardRange(80, 120));
+    messyRanges.add(new ShardRange(500, 500));
+    CompiledShard messyShard = CompiledShard.compile(new Shard("salt", messyRanges), false);
+    assertNotNull(messyShard.getRangeProblem());
+    assertTrue(messyShard.contains(0));
+    assertTrue(messyShard.contains(119));
+    assertFalse(messyShard.contains(120));
+    assertFalse(messyShard.contains(500));
+
+    CompiledShard emptyShard = CompiledShard.compile(new Shard("salt", new HashSet<>()), false);
+    assertFalse(emptyShard.contains(0));
+  }
+
+  @Test
+  public void testObfuscatedCompileRejectsInvalidBase64() {
+    List<Allocation> allocations = createAllocations("not base64!", createSplits("a"));
+    FlagConfig flag = createFlag(getMD5Hex("flag"), true, createVariations("a"), allocations);
+    assertThrows(IllegalArgumentException.class, () -> CompiledFlag.compile(flag, true));
+
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> CompiledShard.compile(new Shard("not base64!", new HashSet<>()), true));
+  }
+
   private Set<Shard> createShards(String salt) {
     return createShards(salt, null, null);
   }
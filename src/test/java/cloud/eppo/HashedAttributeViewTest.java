@@ -0,0 +1,70 @@
+package cloud.eppo;
+
+import static cloud.eppo.Utils.getMD5Hex;
+import static org.junit.jupiter.api.Assertions.*;
+
+import cloud.eppo.api.Attributes;
+import cloud.eppo.api.EppoValue;
+import cloud.eppo.api.MapAttributeView;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+public class HashedAttributeViewTest {
+
+  @Test
+  public void testLookupByHashedName() {
+    Attributes attributes = new Attributes();
+    attributes.put("country", "US");
+    attributes.put("age", 30);
+    HashedAttributeView view =
+        HashedAttributeView.of(MapAttributeView.forSubject("alice", attributes));
+
+    assertEquals(EppoValue.valueOf("US"), view.getByHashedName(getMD5Hex("country")));
+    assertEquals(EppoValue.valueOf(30), view.getByHashedName(getMD5Hex("age")));
+    assertEquals(EppoValue.valueOf("alice"), view.getByHashedName(getMD5Hex("id")));
+    assertEquals("country", view.nameForHash(getMD5Hex("country")));
+    assertNull(view.getByHashedName(getMD5Hex("email")));
+    assertNull(view.nameForHash(getMD5Hex("email")));
+
+    // Plain lookups still use the attribute names
+    assertEquals(EppoValue.valueOf("US"), view.get("country"));
+    assertTrue(view.containsKey("age"));
+  }
+
+  @Test
+  public void testWrapsOnlyOnce() {
+    HashedAttributeView view = HashedAttributeView.of(new MapAttributeView(new Attributes()));
+    assertSame(view, HashedAttributeView.of(view));
+  }
+
+  @Test
+  public void testHashNameMatchesMd5() {
+    assertEquals(getMD5Hex("country"), HashedAttributeView.hashName("country"));
+    // Served from the cache the second time
+    assertEquals(getMD5Hex("country"), HashedAttributeView.hashName("country"));
+  }
+
+  @Test
+  public void testHashNameFromManyThreadsPastCacheSize() throws InterruptedException {
+    Thread[] threads = new Thread[4];
+    AtomicInteger mismatches = new AtomicInteger();
+    for (int t = 0; t < threads.length; t++) {
+      threads[t] =
+          new Thread(
+              () -> {
+                // More names than the cache holds, so it is emptied along the way
+                for (int i = 0; i < 5000; i++) {
+                  String name = "attribute-" + i;
+                  if (!getMD5Hex(name).equals(HashedAttributeView.hashName(name))) {
+                    mismatches.incrementAndGet();
+                  }
+                }
+              });
+      threads[t].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertEquals(0, mismatches.get());
+  }
+}
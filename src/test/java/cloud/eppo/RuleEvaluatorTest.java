@@ -1,13 +1,17 @@
 package cloud.eppo;
 
+import static cloud.eppo.Utils.getMD5Hex;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 
 import cloud.eppo.api.Attributes;
 import cloud.eppo.api.EppoValue;
+import cloud.eppo.model.CompiledCondition;
 import cloud.eppo.ufc.dto.OperatorType;
 import cloud.eppo.ufc.dto.TargetingCondition;
 import cloud.eppo.ufc.dto.TargetingRule;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
@@ -282,4 +286,136 @@ public class RuleEvaluatorTest {
     assertEquals(
         targetingRule, RuleEvaluator.findMatchingRule(subjectAttributes, targetingRules, false));
   }
+
+  @Test
+  public void testMatchesAnyRuleWithLargeOneOfList() {
+    List<String> values = new ArrayList<>();
+    for (int i = 0; i < 10000; i++) {
+      values.add("user-" + i);
+    }
+    Set<TargetingRule> targetingRules = new HashSet<>();
+    TargetingRule targetingRule = createRule(new HashSet<>());
+    addConditionToRule(
+        targetingRule,
+        new TargetingCondition(OperatorType.ONE_OF, "oneOf", EppoValue.valueOf(values)));
+    targetingRules.add(targetingRule);
+
+    Attributes subjectAttributes = new Attributes();
+    subjectAttributes.put("oneOf", EppoValue.valueOf("user-9999"));
+    assertEquals(
+        targetingRule, RuleEvaluator.findMatchingRule(subjectAttributes, targetingRules, false));
+
+    subjectAttributes.put("oneOf", EppoValue.valueOf("user-10000"));
+    assertNull(RuleEvaluator.findMatchingRule(subjectAttributes, targetingRules, false));
+  }
+
+  @Test
+  public void testMatchesAnyRuleWithObfuscatedOneOfRule() {
+    List<String> values = Arrays.asList(getMD5Hex("value1"), getMD5Hex("2"));
+    Set<TargetingRule> targetingRules = new HashSet<>();
+    TargetingRule targetingRule = createRule(new HashSet<>());
+    addConditionToRule(
+        targetingRule,
+        new TargetingCondition(OperatorType.ONE_OF, getMD5Hex("oneOf"), EppoValue.valueOf(values)));
+    targetingRules.add(targetingRule);
+
+    Attributes subjectAttributes = new Attributes();
+    subjectAttributes.put("oneOf", EppoValue.valueOf(2));
+    assertEquals(
+        targetingRule, RuleEvaluator.findMatchingRule(subjectAttributes, targetingRules, true));
+
+    subjectAttributes.put("oneOf", EppoValue.valueOf("value2"));
+    assertNull(RuleEvaluator.findMatchingRule(subjectAttributes, targetingRules, true));
+  }
+
+  @Test
+  public void testInvalidRegexConditionNeverMatches() {
+    Attributes subjectAttributes = new Attributes();
+    subjectAttributes.put("match", EppoValue.valueOf("abc"));
+
+    for (OperatorType operator : Arrays.asList(OperatorType.MATCHES, OperatorType.NOT_MATCHES)) {
+      Set<TargetingRule> targetingRules = new HashSet<>();
+      TargetingRule targetingRule = createRule(new HashSet<>());
+      addConditionToRule(
+          targetingRule, new TargetingCondition(operator, "match", EppoValue.valueOf("[abc")));
+      targetingRules.add(targetingRule);
+
+      assertNull(RuleEvaluator.findMatchingRule(subjectAttributes, targetingRules, false));
+    }
+  }
+
+  @Test
+  public void testCatastrophicRegexConditionFailsWithinBudget() {
+    Attributes subjectAttributes = new Attributes();
+    subjectAttributes.put("match", EppoValue.valueOf("aaaaaaaaaaaaaaaaaaaaaaaaaaaaaa"));
+
+    for (OperatorType operator : Arrays.asList(OperatorType.MATCHES, OperatorType.NOT_MATCHES)) {
+      Set<TargetingRule> targetingRules = new HashSet<>();
+      TargetingRule targetingRule = createRule(new HashSet<>());
+      addConditionToRule(
+          targetingRule,
+          new TargetingCondition(operator, "match", EppoValue.valueOf("(.*a){10}b")));
+      targetingRules.add(targetingRule);
+
+      assertNull(RuleEvaluator.findMatchingRule(subjectAttributes, targetingRules, false));
+    }
+  }
+
+  @Test
+  public void testBacktrackingRiskReportedAtCompile() {
+    String[] risky = {
+      "^(a+)+$",
+      "(.*a){10}b",
+      "(.*)*",
+      "((ab)*c)+",
+      "(x|y){2,}z*(\\d+)+",
+      "(a)\\1",
+      "(\\\\+)+",
+      "(\\Qab\\E+)+"
+    };
+    for (String pattern : risky) {
+      TargetingCondition condition =
+          new TargetingCondition(OperatorType.MATCHES, "match", EppoValue.valueOf(pattern));
+      assertNotNull(CompiledCondition.compile(condition, false).getPatternWarning(), pattern);
+    }
+
+    String[] safe = {
+      "^[a-z]+@example\\.com$",
+      "(ab)+",
+      "a+b*c",
+      "[(+)]+",
+      "\\(a+\\)+",
+      "(a?)+",
+      "\\Q(a+)+",
+      "\\Qabc"
+    };
+    for (String pattern : safe) {
+      TargetingCondition condition =
+          new TargetingCondition(OperatorType.MATCHES, "match", EppoValue.valueOf(pattern));
+      assertNull(CompiledCondition.compile(condition, false).getPatternWarning(), pattern);
+    }
+  }
+
+  @Test
+  public void testUnterminatedQuoteIsAValidPattern() {
+    // Quoted to the end of the pattern, which java.util.regex accepts
+    TargetingCondition condition =
+        new TargetingCondition(OperatorType.MATCHES, "match", EppoValue.valueOf("\\Qa+c"));
+    CompiledCondition compiled = CompiledCondition.compile(condition, false);
+    assertNotNull(compiled.getPattern());
+    assertNull(compiled.getPatternError());
+    assertNull(compiled.getPatternWarning());
+    TargetingCondition plainCondition =
+        new TargetingCondition(OperatorType.MATCHES, "match", EppoValue.valueOf("abc"));
+    assertEquals(CompiledCondition.compile(plainCondition, false).getCost(), compiled.getCost());
+
+    Attributes subjectAttributes = new Attributes();
+    subjectAttributes.put("match", EppoValue.valueOf("xa+cx"));
+    Set<TargetingRule> targetingRules = new HashSet<>();
+    TargetingRule targetingRule = createRule(new HashSet<>());
+    addConditionToRule(targetingRule, condition);
+    targetingRules.add(targetingRule);
+    assertEquals(
+        targetingRule, RuleEvaluator.findMatchingRule(subjectAttributes, targetingRules, false));
+  }
 }
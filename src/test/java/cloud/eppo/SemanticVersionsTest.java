@@ -0,0 +1,69 @@
+package cloud.eppo;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.github.zafarkhaja.semver.Version;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+public class SemanticVersionsTest {
+
+  @Test
+  public void testParsesValidVersions() {
+    assertEquals(Version.parse("1.2.3"), SemanticVersions.tryParse("1.2.3"));
+    assertEquals(Version.parse("0.0.0"), SemanticVersions.tryParse("0.0.0"));
+    assertEquals(
+        Version.parse("10.20.30-rc.1+build.001"),
+        SemanticVersions.tryParse("10.20.30-rc.1+build.001"));
+    // Served from the cache the second time
+    assertSame(SemanticVersions.tryParse("4.5.6"), SemanticVersions.tryParse("4.5.6"));
+  }
+
+  @Test
+  public void testRejectsInvalidVersions() {
+    String[] invalid = {
+      "",
+      "1",
+      "1.2",
+      "v1.2.3",
+      " 1.2.3",
+      "1.2.3 ",
+      "01.2.3",
+      "1.2.3-",
+      "1.2.3-a..b",
+      "1.2.3-01",
+      "1.2.3+",
+      "1.2.3-é",
+      "99999999999999999999.0.0"
+    };
+    for (String versionString : invalid) {
+      assertNull(SemanticVersions.tryParse(versionString), versionString);
+    }
+    assertNull(SemanticVersions.tryParse(null));
+  }
+
+  @Test
+  public void testParsesFromManyThreadsPastCacheSize() throws InterruptedException {
+    Thread[] threads = new Thread[4];
+    AtomicInteger mismatches = new AtomicInteger();
+    for (int t = 0; t < threads.length; t++) {
+      threads[t] =
+          new Thread(
+              () -> {
+                // More versions than the cache holds, so it is emptied along the way
+                for (int i = 0; i < 2000; i++) {
+                  String versionString = "1." + (i % 1000) + ".0-beta." + i;
+                  if (!Version.parse(versionString)
+                      .equals(SemanticVersions.tryParse(versionString))) {
+                    mismatches.incrementAndGet();
+                  }
+                }
+              });
+      threads[t].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertEquals(0, mismatches.get());
+  }
+}
@@ -0,0 +1,23 @@
+package cloud.eppo;
+
+import static cloud.eppo.Utils.getShard;
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+public class SubjectShardsTest {
+
+  @Test
+  public void testMatchesGetShard() {
+    SubjectShards subjectShards = new SubjectShards("subject-42");
+    // Enough salts to go beyond the linearly scanned ones, each looked up repeatedly
+    for (int round = 0; round < 3; round++) {
+      for (int i = 0; i < 20; i++) {
+        String salt = "salt-" + i;
+        assertEquals(getShard(salt, "subject-42", 10000), subjectShards.getShard(salt, 10000));
+        assertEquals(getShard(salt, "subject-42", 7), subjectShards.getShard(salt, 7));
+      }
+    }
+    assertEquals("subject-42", subjectShards.getSubjectKey());
+  }
+}
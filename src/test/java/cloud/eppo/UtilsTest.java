@@ -2,11 +2,17 @@ package cloud.eppo;
 
 import static cloud.eppo.Utils.*;
 import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Date;
+import java.util.Random;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -80,6 +86,64 @@ public class UtilsTest {
     assertEquals(8, getShard("shard me", 10));
   }
 
+  @Test
+  public void testGetMd5HashMatchesMessageDigest() throws NoSuchAlgorithmException {
+    MessageDigest messageDigest = MessageDigest.getInstance("MD5");
+    Random random = new Random(42);
+    // Cover multi-block inputs, lengths around the padding boundary and non-ASCII characters
+    String alphabet = "abcXYZ019-_ é中\uD83D\uDE00";
+    for (int length = 0; length < 200; length++) {
+      StringBuilder input = new StringBuilder();
+      for (int i = 0; i < length; i++) {
+        input.append(alphabet.charAt(random.nextInt(alphabet.length())));
+      }
+      byte[] expected = messageDigest.digest(input.toString().getBytes(StandardCharsets.UTF_8));
+      StringBuilder expectedHex = new StringBuilder();
+      for (byte b : expected) {
+        expectedHex.append(String.format("%02x", b));
+      }
+      assertEquals(expectedHex.toString(), getMD5Hex(input.toString()));
+    }
+  }
+
+  @Test
+  public void testGetShardWithSalt() {
+    for (int i = 0; i < 1000; i++) {
+      String subjectKey = "subject-" + i;
+      assertEquals(
+          getShard("salt-" + i + "-" + subjectKey, 10000),
+          getShard("salt-" + i, subjectKey, 10000));
+    }
+  }
+
+  @Test
+  public void testGetShardAfterAbandonedHash() {
+    int expected = getShard("salt-subject", 10000);
+    // Fails after hashing the prefix, leaving the thread's scratch buffer part-way through a hash
+    assertThrows(NullPointerException.class, () -> getShard("salt", null, 10000));
+    assertEquals(expected, getShard("salt", "subject", 10000));
+  }
+
+  @Test
+  public void testGetShardDoesNotAllocate() {
+    assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+    com.sun.management.ThreadMXBean threads =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    assumeTrue(threads.isThreadAllocatedMemorySupported());
+    threads.setThreadAllocatedMemoryEnabled(true);
+    long threadId = Thread.currentThread().getId();
+
+    int total = getShard("warm", "up", 10000);
+    long before = threads.getThreadAllocatedBytes(threadId);
+    for (int i = 0; i < 100000; i++) {
+      total += getShard("salt", "subject", 10000);
+    }
+    long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+    assertTrue(total > 0);
+    // Nothing per call; a little slack for the measurement itself
+    assertTrue(allocated < 100000, "allocated " + allocated + " bytes");
+  }
+
   @Test
   public void testParseUtcISODateNode() throws JsonProcessingException {
     ObjectMapper mapper = new ObjectMapper();
@@ -3,17 +3,24 @@ package cloud.eppo.api;
 import static cloud.eppo.Utils.getMD5Hex;
 import static org.junit.jupiter.api.Assertions.*;
 
+import cloud.eppo.model.CompiledFlag;
 import cloud.eppo.ufc.dto.FlagConfig;
 import cloud.eppo.ufc.dto.FlagConfigResponse;
 import cloud.eppo.ufc.dto.VariationType;
 import cloud.eppo.ufc.dto.adapters.EppoModule;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.File;
 import java.io.IOException;
 import java.text.SimpleDateFormat;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 import java.util.TimeZone;
+import org.apache.commons.io.FileUtils;
 import org.junit.jupiter.api.Test;
 
 public class ConfigurationBuilderTest {
@@ -61,6 +68,148 @@ public class ConfigurationBuilderTest {
     assertEquals(rehydratedConfig.getFormat(), FlagConfigResponse.Format.CLIENT);
   }
 
+  @Test
+  public void testSerializedFlagsMatchTreeGraftedFormat() throws IOException {
+    byte[] flagsJson = FileUtils.readFileToByteArray(new File("src/test/resources/flags-v1.json"));
+    FlagConfigResponse response = mapper.readValue(flagsJson, FlagConfigResponse.class);
+    for (boolean obfuscated : new boolean[] {false, true}) {
+      Configuration config = new Configuration.Builder(flagsJson, response, obfuscated).build();
+
+      ObjectNode expected = (ObjectNode) mapper.readTree(flagsJson);
+      expected.put("format", obfuscated ? "CLIENT" : "SERVER");
+      assertArrayEquals(mapper.writeValueAsBytes(expected), config.serializeFlagConfigToBytes());
+      // Produced once, then reused
+      assertSame(config.serializeFlagConfigToBytes(), config.serializeFlagConfigToBytes());
+    }
+  }
+
+  @Test
+  public void testSerializedFlagsReplaceFormatInPlace() throws IOException {
+    byte[] jsonBytes =
+        "{ \"format\": \"CLIENT\", \"flags\": {}, \"environment\": { \"name\": \"Test\" } }"
+            .getBytes();
+    Configuration config =
+        new Configuration.Builder(
+                jsonBytes, mapper.readValue(jsonBytes, FlagConfigResponse.class), false)
+            .build();
+
+    assertEquals(
+        "{\"format\":\"SERVER\",\"flags\":{},\"environment\":{\"name\":\"Test\"}}",
+        new String(config.serializeFlagConfigToBytes()));
+  }
+
+  @Test
+  public void testLazyBuilderCompilesFlagsOnFirstUse() throws IOException {
+    byte[] flagsJson = FileUtils.readFileToByteArray(new File("src/test/resources/flags-v1.json"));
+    Configuration eager = Configuration.builder(flagsJson).build();
+    Configuration lazy = Configuration.lazyBuilder(flagsJson).build();
+
+    assertEquals(eager.getFlagKeys(), lazy.getFlagKeys());
+    assertFalse(lazy.isEmpty());
+    for (String flagKey : eager.getFlagKeys()) {
+      assertEquals(eager.getFlag(flagKey), lazy.getFlag(flagKey));
+      assertEquals(eager.getFlagType(flagKey), lazy.getFlagType(flagKey));
+      CompiledFlag compiledFlag = lazy.getCompiledFlag(flagKey);
+      assertEquals(eager.getCompiledFlag(flagKey).getKind(), compiledFlag.getKind());
+      // Compiled once, then kept
+      assertSame(compiledFlag, lazy.getCompiledFlag(flagKey));
+    }
+    assertNull(lazy.getFlag("no-such-flag"));
+    assertNull(lazy.getCompiledFlag("no-such-flag"));
+    assertArrayEquals(eager.serializeFlagConfigToBytes(), lazy.serializeFlagConfigToBytes());
+  }
+
+  @Test
+  public void testFlagFilterKeepsAllowedFlags() throws IOException {
+    byte[] flagsJson = FileUtils.readFileToByteArray(new File("src/test/resources/flags-v1.json"));
+    Configuration unfiltered = Configuration.builder(flagsJson).build();
+    FlagFilter flagFilter =
+        FlagFilter.of(
+            Arrays.asList("numeric_flag", "no-such-flag"), Arrays.asList("numeric-", "kill"));
+    Set<String> expectedKeys =
+        new HashSet<>(Arrays.asList("numeric_flag", "numeric-one-of", "kill-switch"));
+
+    Configuration[] configs = {
+      Configuration.builder(flagsJson, flagFilter).build(),
+      Configuration.builder(flagsJson, Runnable::run, flagFilter).build(),
+      Configuration.lazyBuilder(flagsJson, flagFilter).build()
+    };
+    for (Configuration config : configs) {
+      assertEquals(expectedKeys, config.getFlagKeys());
+      for (String flagKey : expectedKeys) {
+        assertEquals(unfiltered.getFlag(flagKey), config.getFlag(flagKey));
+        assertNotNull(config.getCompiledFlag(flagKey));
+      }
+      assertNull(config.getFlag("integer-flag"));
+      assertNull(config.getCompiledFlag("integer-flag"));
+    }
+
+    // Without a filter, nothing is left out
+    assertEquals(
+        unfiltered.getFlagKeys(),
+        Configuration.builder(flagsJson, (FlagFilter) null).build().getFlagKeys());
+  }
+
+  @Test
+  public void testFlagFilterMatchesObfuscatedKeys() {
+    String flagsJson =
+        "{\"format\": \"CLIENT\", \"flags\": {\""
+            + getMD5Hex("checkout-flag")
+            + "\": {\"key\": \""
+            + getMD5Hex("checkout-flag")
+            + "\", \"enabled\": true}, \""
+            + getMD5Hex("other-flag")
+            + "\": {\"key\": \""
+            + getMD5Hex("other-flag")
+            + "\", \"enabled\": true}}}";
+
+    Configuration config =
+        Configuration.builder(flagsJson.getBytes(), FlagFilter.keys("checkout-flag")).build();
+    assertTrue(config.isConfigObfuscated());
+    assertEquals(Collections.singleton(getMD5Hex("checkout-flag")), config.getFlagKeys());
+    assertNotNull(config.getFlag("checkout-flag"));
+    assertNull(config.getFlag("other-flag"));
+
+    // Prefixes can't be matched against hashed keys
+    assertTrue(
+        Configuration.builder(flagsJson.getBytes(), FlagFilter.prefixes("checkout"))
+            .build()
+            .isEmpty());
+  }
+
+  @Test
+  public void testFlagFilterSkipsUnreferencedBandits() throws IOException {
+    byte[] flagsJson =
+        FileUtils.readFileToByteArray(
+            new File("src/test/resources/static/initial-flag-config-with-bandit.json"));
+    byte[] banditsJson =
+        FileUtils.readFileToByteArray(
+            new File("src/test/resources/static/initial-bandit-parameters.json"));
+
+    Configuration.Builder keepingBandit =
+        Configuration.builder(flagsJson, FlagFilter.keys("banner_bandit_flag"));
+    assertTrue(keepingBandit.requiresUpdatedBanditModels());
+    Configuration config = keepingBandit.banditParameters(banditsJson, Runnable::run).build();
+    assertNotNull(config.getBanditParameters("banner_bandit"));
+    assertEquals(
+        "banner_bandit", config.banditKeyForVariation("banner_bandit_flag", "banner_bandit"));
+
+    Configuration.Builder droppingBandit =
+        Configuration.builder(flagsJson, FlagFilter.prefixes("unrelated-"));
+    assertFalse(droppingBandit.requiresUpdatedBanditModels());
+    Configuration filtered = droppingBandit.banditParameters(banditsJson).build();
+    assertTrue(filtered.isEmpty());
+    assertNull(filtered.getBanditParameters("banner_bandit"));
+    assertNull(filtered.banditKeyForVariation("banner_bandit_flag", "banner_bandit"));
+
+    // Models reused from the previous configuration are filtered too
+    Configuration reused =
+        Configuration.builder(flagsJson, FlagFilter.prefixes("unrelated-"))
+            .banditParametersFromConfig(config)
+            .build();
+    assertNull(reused.getBanditParameters("banner_bandit"));
+  }
+
   @Test
   public void getFlagType_shouldReturnCorrectType() {
     // Create a flag config with a STRING variation type
@@ -0,0 +1,56 @@
+package cloud.eppo.api;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+public class MapAttributeViewTest {
+
+  @Test
+  public void testSubjectKeyOverlaidAsId() {
+    Attributes attributes = new Attributes();
+    attributes.put("country", "US");
+    AttributeView view = MapAttributeView.forSubject("alice", attributes);
+
+    assertEquals(EppoValue.valueOf("alice"), view.get("id"));
+    assertTrue(view.containsKey("id"));
+    assertEquals(EppoValue.valueOf("US"), view.get("country"));
+    assertNull(view.get("age"));
+    assertFalse(view.containsKey("age"));
+
+    Map<String, EppoValue> entries = new HashMap<>();
+    for (Map.Entry<String, EppoValue> entry : view.entries()) {
+      entries.put(entry.getKey(), entry.getValue());
+    }
+    assertEquals(2, entries.size());
+    assertEquals(EppoValue.valueOf("alice"), entries.get("id"));
+
+    // The caller's attributes are not modified
+    assertEquals(1, attributes.size());
+    assertFalse(attributes.containsKey("id"));
+  }
+
+  @Test
+  public void testProvidedIdTakesPrecedence() {
+    Attributes attributes = new Attributes();
+    attributes.put("id", "bob");
+    AttributeView view = MapAttributeView.forSubject("alice", attributes);
+
+    assertEquals(EppoValue.valueOf("bob"), view.get("id"));
+    int count = 0;
+    for (Map.Entry<String, EppoValue> entry : view.entries()) {
+      assertEquals(EppoValue.valueOf("bob"), entry.getValue());
+      count++;
+    }
+    assertEquals(1, count);
+  }
+
+  @Test
+  public void testNullAttributes() {
+    AttributeView view = MapAttributeView.forSubject("alice", null);
+    assertEquals(EppoValue.valueOf("alice"), view.get("id"));
+    assertFalse(new MapAttributeView(null).entries().iterator().hasNext());
+  }
+}
@@ -1,13 +1,16 @@
 package cloud.eppo.ufc.deserializer;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import cloud.eppo.ufc.dto.*;
+import cloud.eppo.ufc.dto.adapters.BanditParametersResponseDeserializer;
 import cloud.eppo.ufc.dto.adapters.EppoModule;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.io.File;
 import java.io.IOException;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
 import org.apache.commons.io.FileUtils;
 import org.junit.jupiter.api.Test;
 
@@ -147,4 +150,39 @@ class BanditParametersResponseDeserializerTest {
     assertEquals(9.0, adidasPurchasedLast30CoefficientValues.get("true"));
     assertEquals(0.0, adidasPurchasedLast30CoefficientValues.get("false"));
   }
+
+  @Test
+  public void testParallelSameAsSequential() throws IOException {
+    byte[] json =
+        FileUtils.readFileToByteArray(new File("src/test/resources/bandits-parameters-1.json"));
+    BanditParametersResponse expected = mapper.readValue(json, BanditParametersResponse.class);
+
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      // Models handed out as byte ranges
+      assertEquals(expected, new BanditParametersResponseDeserializer(pool).deserialize(json));
+      // Models handed out as buffered tokens
+      ObjectMapper parallelMapper = new ObjectMapper().registerModule(EppoModule.eppoModule(pool));
+      assertEquals(expected, parallelMapper.readValue(json, BanditParametersResponse.class));
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void testParallelPropagatesErrors() throws IOException {
+    BanditParametersResponseDeserializer parallelDeserializer =
+        new BanditParametersResponseDeserializer(Runnable::run);
+    // Bandit without a model
+    assertThrows(
+        NullPointerException.class,
+        () ->
+            parallelDeserializer.deserialize(
+                ("{\"bandits\": {\"b\": {\"banditKey\": \"b\", \"updatedAt\":"
+                        + " \"2024-04-17T19:40:53.716Z\", \"modelName\": \"falcon\","
+                        + " \"modelVersion\": \"v1\"}}}")
+                    .getBytes()));
+    assertEquals(
+        0, parallelDeserializer.deserialize("{\"bandits\": []}".getBytes()).getBandits().size());
+  }
 }
@@ -0,0 +1,190 @@
+package cloud.eppo.ufc.deserializer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import cloud.eppo.ufc.dto.FlagConfig;
+import cloud.eppo.ufc.dto.FlagConfigResponse;
+import cloud.eppo.ufc.dto.adapters.LazyFlagConfigResponseDeserializer;
+import cloud.eppo.ufc.dto.adapters.StreamingFlagConfigResponseDeserializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Compares the streaming and tree-based flag configuration deserializers, the streaming one running
+ * sequentially and in parallel, and eager and lazy loading.
+ */
+public class ProfileFlagConfigResponseDeserializerTest {
+  private static final Logger log =
+      LoggerFactory.getLogger(ProfileFlagConfigResponseDeserializerTest.class);
+
+  @Test
+  public void testStreamingDeserializerPerformance() throws IOException {
+    byte[] smallConfig =
+        FileUtils.readFileToByteArray(new File("src/test/resources/flags-v1.json"));
+    byte[] largeConfig = StreamingFlagConfigResponseDeserializerTest.syntheticConfig(200);
+
+    for (byte[] config : new byte[][] {smallConfig, largeConfig}) {
+      int iterations = config == smallConfig ? 500 : 5;
+      // Warm up both
+      measure(StreamingFlagConfigResponseDeserializerTest.treeMapper, config, iterations);
+      measure(StreamingFlagConfigResponseDeserializerTest.streamingMapper, config, iterations);
+
+      long[] tree =
+          measure(StreamingFlagConfigResponseDeserializerTest.treeMapper, config, iterations);
+      long[] streaming =
+          measure(StreamingFlagConfigResponseDeserializerTest.streamingMapper, config, iterations);
+      log.info(
+          "{} bytes x {}: tree {} ns, {} bytes allocated; streaming {} ns, {} bytes allocated",
+          config.length,
+          iterations,
+          tree[0],
+          tree[1],
+          streaming[0],
+          streaming[1]);
+
+      if (tree[1] > 0 && streaming[1] > 0) {
+        // Without the tree, parsing allocates considerably less
+        assertTrue(
+            streaming[1] < tree[1],
+            "streaming allocated " + streaming[1] + " bytes, tree " + tree[1]);
+      }
+    }
+  }
+
+  @Test
+  public void testParallelDeserializerSpeedup() throws IOException {
+    byte[] config = StreamingFlagConfigResponseDeserializerTest.syntheticConfig(200);
+    StreamingFlagConfigResponseDeserializer sequential =
+        new StreamingFlagConfigResponseDeserializer();
+    FlagConfigResponse expected = sequential.deserialize(config);
+    int iterations = 5;
+    // Warm up
+    measureWallTime(sequential, config, iterations);
+    long sequentialTime = measureWallTime(sequential, config, iterations);
+    log.info(
+        "{} flags x {}: sequential {} ns ({} available processors)",
+        expected.getFlags().size(),
+        iterations,
+        sequentialTime,
+        Runtime.getRuntime().availableProcessors());
+
+    for (int threads : new int[] {2, 4, 8}) {
+      ForkJoinPool pool = new ForkJoinPool(threads);
+      try {
+        StreamingFlagConfigResponseDeserializer parallel =
+            new StreamingFlagConfigResponseDeserializer(pool);
+        assertEquals(expected, parallel.deserialize(config));
+        measureWallTime(parallel, config, iterations);
+        long parallelTime = measureWallTime(parallel, config, iterations);
+        log.info(
+            "{} threads: {} ns, speedup {}",
+            threads,
+            parallelTime,
+            String.format("%.2fx", (double) sequentialTime / parallelTime));
+      } finally {
+        pool.shutdown();
+      }
+    }
+  }
+
+  @Test
+  public void testLazyDeserializerPerformance() throws IOException {
+    byte[] config = StreamingFlagConfigResponseDeserializerTest.syntheticConfig(200);
+    StreamingFlagConfigResponseDeserializer eager = new StreamingFlagConfigResponseDeserializer();
+    LazyFlagConfigResponseDeserializer lazy = new LazyFlagConfigResponseDeserializer();
+    List<String> usedFlags = new ArrayList<>(eager.deserialize(config).getFlags().keySet());
+    usedFlags = usedFlags.subList(0, 20);
+    int iterations = 5;
+    // Warm up both
+    measureUsingFlags(eager, config, usedFlags, iterations);
+    measureUsingFlags(lazy, config, usedFlags, iterations);
+
+    long[] eagerCost = measureUsingFlags(eager, config, usedFlags, iterations);
+    long[] lazyCost = measureUsingFlags(lazy, config, usedFlags, iterations);
+    log.info(
+        "{} bytes x {}, using {} flags: eager {} ns, {} bytes allocated; lazy {} ns, {} bytes"
+            + " allocated",
+        config.length,
+        iterations,
+        usedFlags.size(),
+        eagerCost[0],
+        eagerCost[1],
+        lazyCost[0],
+        lazyCost[1]);
+
+    if (eagerCost[1] > 0 && lazyCost[1] > 0) {
+      // Indexing allocates little more than the index
+      assertTrue(
+          lazyCost[1] < eagerCost[1] / 2,
+          "lazy allocated " + lazyCost[1] + " bytes, eager " + eagerCost[1]);
+    }
+  }
+
+  /** Returns the CPU time and bytes allocated to deserialize the config and look up some flags. */
+  private static long[] measureUsingFlags(
+      StreamingFlagConfigResponseDeserializer deserializer,
+      byte[] config,
+      List<String> flagKeys,
+      int iterations)
+      throws IOException {
+    ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+    long startTime = threadBean.getCurrentThreadCpuTime();
+    long startBytes = allocatedBytes(threadBean);
+    for (int i = 0; i < iterations; i++) {
+      Map<String, FlagConfig> flags = deserializer.deserialize(config).getFlags();
+      for (String flagKey : flagKeys) {
+        assertNotNull(flags.get(flagKey));
+      }
+    }
+    long elapsedTime = threadBean.getCurrentThreadCpuTime() - startTime;
+    long allocated = allocatedBytes(threadBean) - startBytes;
+    return new long[] {elapsedTime, allocated};
+  }
+
+  private static long measureWallTime(
+      StreamingFlagConfigResponseDeserializer deserializer, byte[] config, int iterations)
+      throws IOException {
+    long start = System.nanoTime();
+    for (int i = 0; i < iterations; i++) {
+      deserializer.deserialize(config);
+    }
+    return System.nanoTime() - start;
+  }
+
+  /** Returns the CPU time and bytes allocated by the current thread to deserialize the config. */
+  private static long[] measure(ObjectMapper mapper, byte[] config, int iterations)
+      throws IOException {
+    ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+    long startTime = threadBean.getCurrentThreadCpuTime();
+    long startBytes = allocatedBytes(threadBean);
+    int flagCount = 0;
+    for (int i = 0; i < iterations; i++) {
+      flagCount += mapper.readValue(config, FlagConfigResponse.class).getFlags().size();
+    }
+    long elapsedTime = threadBean.getCurrentThreadCpuTime() - startTime;
+    long allocated = allocatedBytes(threadBean) - startBytes;
+    assertEquals(0, flagCount % iterations);
+    return new long[] {elapsedTime, allocated};
+  }
+
+  private static long allocatedBytes(ThreadMXBean threadBean) {
+    if (threadBean instanceof com.sun.management.ThreadMXBean) {
+      return ((com.sun.management.ThreadMXBean) threadBean)
+          .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+    return -1;
+  }
+}
@@ -0,0 +1,174 @@
+package cloud.eppo.ufc.deserializer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import cloud.eppo.ufc.dto.FlagConfig;
+import cloud.eppo.ufc.dto.FlagConfigResponse;
+import cloud.eppo.ufc.dto.adapters.FlagConfigResponseDeserializer;
+import cloud.eppo.ufc.dto.adapters.LazyFlagConfigResponseDeserializer;
+import cloud.eppo.ufc.dto.adapters.StreamingFlagConfigResponseDeserializer;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.Test;
+
+public class StreamingFlagConfigResponseDeserializerTest {
+  static final ObjectMapper treeMapper =
+      new ObjectMapper()
+          .registerModule(
+              new SimpleModule()
+                  .addDeserializer(FlagConfigResponse.class, new FlagConfigResponseDeserializer()));
+  static final ObjectMapper streamingMapper =
+      new ObjectMapper()
+          .registerModule(
+              new SimpleModule()
+                  .addDeserializer(
+                      FlagConfigResponse.class, new StreamingFlagConfigResponseDeserializer()));
+
+  /** A configuration with the flags of flags-v1.json repeated under different keys. */
+  static byte[] syntheticConfig(int copies) throws IOException {
+    ObjectMapper mapper = new ObjectMapper();
+    ObjectNode root = (ObjectNode) mapper.readTree(new File("src/test/resources/flags-v1.json"));
+    ObjectNode flags = (ObjectNode) root.get("flags");
+    ObjectNode copiedFlags = mapper.createObjectNode();
+    for (int i = 0; i < copies; i++) {
+      for (Iterator<Map.Entry<String, JsonNode>> it = flags.fields(); it.hasNext(); ) {
+        Map.Entry<String, JsonNode> flag = it.next();
+        ObjectNode copy = flag.getValue().deepCopy();
+        copy.put("key", flag.getKey() + "-" + i);
+        copiedFlags.set(flag.getKey() + "-" + i, copy);
+      }
+    }
+    root.set("flags", copiedFlags);
+    return mapper.writeValueAsBytes(root);
+  }
+
+  private static void assertSameAsTree(byte[] json) throws IOException {
+    FlagConfigResponse expected = treeMapper.readValue(json, FlagConfigResponse.class);
+    FlagConfigResponse actual = streamingMapper.readValue(json, FlagConfigResponse.class);
+    assertEquals(expected, actual);
+  }
+
+  private static void assertSameAsTree(String json) throws IOException {
+    assertSameAsTree(json.getBytes());
+  }
+
+  @Test
+  public void testSameAsTreeDeserializer() throws IOException {
+    assertSameAsTree(FileUtils.readFileToByteArray(new File("src/test/resources/flags-v1.json")));
+    assertSameAsTree(
+        FileUtils.readFileToByteArray(
+            new File("src/test/resources/static/initial-flag-config-with-bandit.json")));
+    assertSameAsTree(
+        FileUtils.readFileToByteArray(
+            new File("src/test/resources/static/initial-flag-config.json")));
+    assertSameAsTree(syntheticConfig(20));
+  }
+
+  @Test
+  public void testSameAsTreeDeserializerForUnusualPayloads() throws IOException {
+    assertSameAsTree("[]");
+    assertSameAsTree("{}");
+    assertSameAsTree("{\"flags\": []}");
+    assertSameAsTree("{\"flags\": {}, \"banditReferences\": []}");
+    // Fields in any order, unknown fields skipped
+    assertSameAsTree(
+        "{\"unknown\": {\"a\": [1, {\"b\": 2}]},"
+            + " \"createdAt\": \"2024-04-17T19:40:53.716Z\","
+            + " \"flags\": {\"f\": {\"totalShards\": 10, \"allocations\": [{\"splits\": [],"
+            + " \"doLog\": false, \"key\": \"a\", \"extra\": [[]]}], \"variations\": {\"v\":"
+            + " {\"value\": [\"x\", 1, \"y\"], \"key\": \"v\"}}, \"enabled\": true,"
+            + " \"variationType\": \"STRING\", \"key\": \"f\"}},"
+            + " \"environment\": {\"id\": 1, \"name\": \"Test\"}, \"format\": \"CLIENT\"}");
+    // Numbers and booleans as text, unknown operators dropped
+    assertSameAsTree(
+        "{\"flags\": {\"f\": {\"key\": \"f\", \"enabled\": \"true\", \"totalShards\": \"10\","
+            + " \"variationType\": \"NUMERIC\", \"variations\": {\"v\": {\"key\": 1.5, \"value\":"
+            + " 1.5}}, \"allocations\": [{\"key\": \"a\", \"doLog\": 1, \"rules\": [{\"conditions\":"
+            + " [{\"attribute\": \"x\", \"operator\": \"NOPE\", \"value\": 1}, {\"attribute\":"
+            + " \"y\", \"operator\": \"GT\", \"value\": 2}]}], \"splits\": [{\"variationKey\":"
+            + " \"v\", \"shards\": [{\"salt\": \"s\", \"ranges\": [{\"start\": 0, \"end\": 5}]}],"
+            + " \"extraLogging\": {\"k\": 3}}]}]}}}");
+  }
+
+  @Test
+  public void testParallelSameAsSequential() throws IOException {
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      StreamingFlagConfigResponseDeserializer parallelDeserializer =
+          new StreamingFlagConfigResponseDeserializer(pool);
+      ObjectMapper parallelMapper =
+          new ObjectMapper()
+              .registerModule(
+                  new SimpleModule()
+                      .addDeserializer(FlagConfigResponse.class, parallelDeserializer));
+      byte[][] configs = {
+        FileUtils.readFileToByteArray(new File("src/test/resources/flags-v1.json")),
+        FileUtils.readFileToByteArray(
+            new File("src/test/resources/static/initial-flag-config-with-bandit.json")),
+        syntheticConfig(20),
+        "{\"flags\": {\"a\": 1, \"b\": [], \"c\": {\"key\": \"c\"}}}".getBytes(),
+        "{\"flags\": []}".getBytes(),
+        "[]".getBytes()
+      };
+      for (byte[] config : configs) {
+        FlagConfigResponse expected = streamingMapper.readValue(config, FlagConfigResponse.class);
+        // Flags handed out as byte ranges
+        assertEquals(expected, parallelDeserializer.deserialize(config));
+        // Flags handed out as buffered tokens
+        assertEquals(expected, parallelMapper.readValue(config, FlagConfigResponse.class));
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void testLazyDeserializesFlagsOnFirstLookup() throws IOException {
+    AtomicInteger deserializedFlags = new AtomicInteger();
+    LazyFlagConfigResponseDeserializer lazyDeserializer =
+        new LazyFlagConfigResponseDeserializer() {
+          @Override
+          protected FlagConfig deserializeFlag(JsonParser jp) throws IOException {
+            deserializedFlags.incrementAndGet();
+            return super.deserializeFlag(jp);
+          }
+        };
+    byte[] config = FileUtils.readFileToByteArray(new File("src/test/resources/flags-v1.json"));
+    FlagConfigResponse expected = streamingMapper.readValue(config, FlagConfigResponse.class);
+
+    FlagConfigResponse lazy = lazyDeserializer.deserialize(config);
+    assertEquals(0, deserializedFlags.get());
+    assertEquals(expected.getFlags().keySet(), lazy.getFlags().keySet());
+    assertEquals(expected.getBanditReferences(), lazy.getBanditReferences());
+    assertEquals(0, deserializedFlags.get());
+
+    FlagConfig flag = lazy.getFlags().get("numeric_flag");
+    assertEquals(expected.getFlags().get("numeric_flag"), flag);
+    assertSame(flag, lazy.getFlags().get("numeric_flag"));
+    assertNull(lazy.getFlags().get("no-such-flag"));
+    assertEquals(1, deserializedFlags.get());
+
+    // Comparing deserializes the rest
+    assertEquals(expected, lazy);
+    assertEquals(expected.getFlags().size(), deserializedFlags.get());
+
+    // Through a mapper, flags are indexed as buffered tokens
+    ObjectMapper lazyMapper =
+        new ObjectMapper()
+            .registerModule(
+                new SimpleModule()
+                    .addDeserializer(
+                        FlagConfigResponse.class, new LazyFlagConfigResponseDeserializer()));
+    assertEquals(expected, lazyMapper.readValue(config, FlagConfigResponse.class));
+  }
+}